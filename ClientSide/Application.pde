@@ -8,6 +8,7 @@ public static class Application {
   private Client c;
   private Session session;
   private ClientSide clientSide;
+  private MessageDispatcher messageDispatcher;
 
   /**
   * Static initializer that runs once to initialize exactly one instance of the Application class.
@@ -78,6 +79,22 @@ public static class Application {
     return session;
   }
   
+  /**
+  * Sets the MessageDispatcher instance for the application.
+  * @param messageDispatcher the MessageDispatcher instance to be used by the application.
+  */
+  public void setMessageDispatcher(MessageDispatcher messageDispatcher) {
+    this.messageDispatcher = messageDispatcher;
+  }
+  
+  /**
+  * Retrieves the current MessageDispatcher instance used by the application.
+  * @return the MessageDispatcher instance currently set in the application.
+  */
+  public MessageDispatcher getMessageDispatcher() {
+    return messageDispatcher;
+  }
+  
   /**
   * Retrieves the current ClientSide instance used by the application.
   * @return the ClientSide instance currently set in the application.
@@ -1,9 +1,11 @@
 /**
  * Extends {@link Component} to represent a drawable canvas area where the drawing from the server is mirrored.
  * Provides functionalities to update the drawing and clear the canvas.
- * Handles incoming server messages that contain drawing information.
+ * Handles incoming server messages that contain drawing information, either single segments or stroke streams.
  */
 public class Canvas extends Component {
+    private HashMap<Integer, int[]> strokes = new HashMap<>(); // strokeId -> {color, strokeSize, lastX, lastY}
+
     /**
      * Constructs a new Canvas object with specified dimensions, colors, and border styling.
      * It initializes the component with a background and border color, dimensions, and border radius,
@@ -26,26 +28,75 @@ public class Canvas extends Component {
      * Updates the canvas drawing based on user input. It processes the input string to extract
      * drawing commands and coordinates, then performs the drawing operation on the canvas.
      * 
-     * @param input the input string containing the drawing commands and parameters formatted as "Draw;;;mouseX;;;mouseY;;;pMouseX;;;pMouseY;;;color;;;strokeSize".
+     * @param input the message containing the drawing commands and parameters formatted as "Draw;;;mouseX;;;mouseY;;;pMouseX;;;pMouseY;;;color;;;strokeSize".
      */
-    public void update(String input) {
-        String[] messageParts = input.split(";;;");
-        int mouseXRec = Integer.parseInt(messageParts[1]) + super.getX();
-        int mouseYRec = Integer.parseInt(messageParts[2]) + super.getY();
-        int pMouseXRec = Integer.parseInt(messageParts[3]) + super.getX();
-        int pMouseYRec = Integer.parseInt(messageParts[4]) + super.getY();
-        int colorRec = Integer.parseInt(messageParts[5]);
-        int strokeSizeRec = Integer.parseInt(messageParts[6]);
+    public void update(Message input) {
+        int mouseXRec = input.getInt(0) + super.getX();
+        int mouseYRec = input.getInt(1) + super.getY();
+        int pMouseXRec = input.getInt(2) + super.getX();
+        int pMouseYRec = input.getInt(3) + super.getY();
+        int colorRec = input.getInt(4);
+        int strokeSizeRec = input.getInt(5);
 
         stroke(colorRec);
         strokeWeight(strokeSizeRec);
         line(mouseXRec, mouseYRec, pMouseXRec, pMouseYRec);
     }
 
+    /**
+     * Opens a stroke stream. The color, stroke size and start point are kept until the stroke ends,
+     * the points of the stroke arrive as deltas in the following "StrokePoints" messages.
+     * 
+     * @param input the message formatted as "StrokeBegin;;;strokeId;;;color;;;strokeSize;;;x;;;y".
+     */
+    public void beginStroke(Message input) {
+        strokes.put(input.getInt(0), new int[] {input.getInt(1), input.getInt(2), input.getInt(3), input.getInt(4)});
+    }
+
+    /**
+     * Draws the next points of a stroke as one polyline, starting at the last point of the stroke.
+     * Points of strokes that began before this client connected are ignored.
+     * 
+     * @param input the message formatted as "StrokePoints;;;strokeId;;;dx;;;dy;;;dx;;;dy...".
+     */
+    public void updateStroke(Message input) {
+        int[] stroke = strokes.get(input.getInt(0));
+        if (stroke == null || input.getFieldCount() < 3) {
+            return;
+        }
+        int x = stroke[2];
+        int y = stroke[3];
+        stroke(stroke[0]);
+        strokeWeight(stroke[1]);
+        strokeJoin(ROUND);
+        noFill();
+        beginShape();
+        vertex(x + super.getX(), y + super.getY());
+        for (int i = 1; i + 1 < input.getFieldCount(); i += 2) {
+            x += input.getInt(i);
+            y += input.getInt(i + 1);
+            vertex(x + super.getX(), y + super.getY());
+        }
+        endShape();
+        strokeJoin(MITER);
+        stroke[2] = x;
+        stroke[3] = y;
+    }
+
+    /**
+     * Closes a stroke stream and discards its state.
+     * 
+     * @param input the message formatted as "StrokeEnd;;;strokeId".
+     */
+    public void endStroke(Message input) {
+        strokes.remove(input.getInt(0));
+    }
+
     /**
      * Clears the canvas by re-drawing the initial state of the component.
      */
     public void clear() {
+        strokes.clear();
         drawComponent();
     }
 }
@@ -5,9 +5,13 @@
  * sending and receiving chat messages to and from the server.
  */
 public class Chat extends Component {
+  private final int LINEHEIGHT = 14;
+  private final int HISTORYCAPACITY = 500;
+  private final int SCROLLLINES = 3;
   private Button send;
   private Textfield messageTextfield;
   private Textarea chatHistory;
+  private ChatHistory history;
   private boolean isChatAllowed;
 
   /**
@@ -29,6 +33,7 @@ public class Chat extends Component {
 
   /**
    * Initializes the UI components and draw the Chat.
+   * The chat history textarea only shows the visible lines of the {@link ChatHistory}.
    */
   @Override
   public void drawComponent() {
@@ -49,11 +54,12 @@ public class Chat extends Component {
     chatHistory = cp5.addTextarea("chatHistory")
       .setPosition(super.getX()+20, super.getY()+20)
       .setSize(super.getWidth()-40, super.getHeight()-100)
-      .setLineHeight(14)
+      .setLineHeight(LINEHEIGHT)
       .setColorBackground(color(255))
       .setColorForeground(color(255))
       .setColor(color(0))
       .setFont(createFont("Arial", 12));
+    history = new ChatHistory(chatHistory, HISTORYCAPACITY, (super.getHeight() - 100) / LINEHEIGHT);
   }
 
   /**
@@ -62,7 +68,7 @@ public class Chat extends Component {
   public void send() {
     if (!messageTextfield.getText().equals("")) {
       String username = Application.getInstance().getSession().getCurrentUser().getUsername();
-      Application.getInstance().getClientSide().writeToServer("Chat;;;"+username+";;;"+messageTextfield.getText());
+      Application.getInstance().getClientSide().writeToServer(new Message("Chat").add(username).add(messageTextfield.getText()));
       messageTextfield.setText("");
     }
   }
@@ -70,13 +76,11 @@ public class Chat extends Component {
   /**
    * Updates the chat history area with a new message received from the server.
    * 
-   * @param input the input string containing the message type, sender username, and message text.
+   * @param input the message containing the sender username and message text.
    */
-  public void update(String input) {
-    String[] messageParts = input.split(";;;");
-    String messageType = messageParts[0]; // Will be "Chat"
-    String username = messageParts[1];
-    String message = messageParts[2];
+  public void update(Message input) {
+    String username = input.getString(0);
+    String message = input.getString(1);
     addMessageToChat(username + ": " + message);
   }
 
@@ -101,12 +105,28 @@ public class Chat extends Component {
     return isChatAllowed;
   }
 
+  /**
+   * Scrolls the chat history, e.g. with the mouse wheel.
+   * 
+   * @param steps the number of scroll steps, positive towards the latest messages, negative towards older messages.
+   */
+  public void scroll(int steps) {
+    history.scroll(steps * SCROLLLINES);
+  }
+
+  /**
+   * Closes the chat history and its archive file. Should be called before the application exits.
+   */
+  public void close() {
+    history.close();
+  }
+
   /**
    * Adds a new message to the chat history.
    * 
    * @param message the message to be added to the chat history.
    */
   private void addMessageToChat(String message) {
-    chatHistory.setText(chatHistory.getStringValue() + message + "\n");
+    history.add(message);
   }
 }
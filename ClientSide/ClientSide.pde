@@ -1,7 +1,7 @@
 import processing.net.*;  //<>//
 import controlP5.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.TreeMap;
 
 private Login login;
 private Application appInstance;
@@ -13,6 +13,9 @@ private ScoreBoard scoreBoard;
 private boolean gameOver;
 private final String SERVERADDRESS = "localhost";
 private final int PORT = 12345;
+private MessageEncoder encoder = new MessageEncoder();
+private MessageDecoder decoder = new MessageDecoder();
+private byte[] readBuffer = new byte[8192];
 
 /**
  * Sets the properties of the GUI, initializes the different GUI components and
@@ -34,6 +37,7 @@ void setup() {
   appInstance.setControlP5(new ControlP5(this));
   appInstance.setSession(new Session());
   appInstance.setClientSide(this);
+  appInstance.setMessageDispatcher(new MessageDispatcher());
 
   chat = new Chat(700, 200, 300, 700, customBlue, customDarkBlue, 0);
   userPane = new UserPane(200, 125, 600, 70, Color.BLACK, Color.BLACK, 0);
@@ -41,8 +45,21 @@ void setup() {
   messagePane = new MessagePane(300, 20, 400, 50, 10, this, customRed, customDarkRed, customGreen, customDarkGreen, 3);
   canvas = new Canvas(0, 200, 700, 700, Color.WHITE, customDarkBlue, 0);
   scoreBoard = new ScoreBoard(800, 0, 200, 200, Color.BLACK, Color.BLACK, 0);
+  registerMessageHandlers();
   connectToServer();
 }
+/**
+ * Prints the number of messages received per type and closes the chat archive before the sketch exits.
+ */
+@Override
+  public void exit() {
+  if (appInstance != null) {
+    reportMessageCounts();
+    chat.close();
+  }
+  super.exit();
+}
+
 /**
  * Main draw loop of the game.
  * Updates current UI and responds to incoming server messages.
@@ -68,47 +85,75 @@ void draw() {
 public void handleIncomingMessages() {
   Client client = Application.getInstance().getClient();
 
-  if (client.available()>0) {
-    String rawMessage = client.readString();
-
-    //make sure that only one message is processed at a time
-    String pattern = "!MSG(.*?)MSG\\?";
-    Pattern regex = Pattern.compile(pattern);
-    Matcher matcher = regex.matcher(rawMessage);
+  while (client.available()>0) {
+    int length = client.readBytes(readBuffer);
 
-    while (matcher.find()) {
-      String message = matcher.group(1); // Get the content in the first capturing group
+    for (Message message : decoder.feed(readBuffer, 0, length)) {
       //println("Received: " + message);
-      if (message.startsWith("Chat")) {
-        chat.update(message);
-      } else if (message.startsWith("Draw")) {
-        canvas.update(message);
-      } else if (message.startsWith("UserLoginResponse")) {
-        login.loginVerification(message);
-      } else if (message.startsWith("UserCreatedResponse")) {
-        login.registrationVerification(message);
-      } else if (message.startsWith("Winner")) {
-        gameOver(message);
-      } else if (message.startsWith("ConnectedUsers")) {
-        userPane.update(message);
-      } else if (message.startsWith("Gamestart")) {
-        canvas.clear();
-        showMessage("New Game has started. Guess away!", false);
-      } else if (message.startsWith("Topscores")) {
-        scoreBoard.update(message);
-      } else if (message.startsWith("UserStats")) {
-        login.updateUserStats(message);
-      }
+      Application.getInstance().getMessageDispatcher().dispatch(message);
     }
   }
 }
+
+/**
+ * Prints the number of messages received per type since the client was started, and the number of messages without a handler.
+ */
+private void reportMessageCounts() {
+  MessageDispatcher dispatcher = appInstance.getMessageDispatcher();
+  StringBuilder report = new StringBuilder("Received messages:");
+  for (Map.Entry<String, Integer> count : new TreeMap<>(dispatcher.getCounts()).entrySet()) {
+    report.append(' ').append(count.getKey()).append(' ').append(count.getValue()).append(',');
+  }
+  println(report + " " + dispatcher.getUnhandledCount() + " unhandled.");
+}
+
+/**
+ * Registers the handlers of all message types the client receives from the server.
+ */
+private void registerMessageHandlers() {
+  MessageDispatcher dispatcher = Application.getInstance().getMessageDispatcher();
+  dispatcher.register("Draw", message -> canvas.update(message));
+  dispatcher.register("StrokeBegin", message -> canvas.beginStroke(message));
+  dispatcher.register("StrokePoints", message -> canvas.updateStroke(message));
+  dispatcher.register("StrokeEnd", message -> canvas.endStroke(message));
+  dispatcher.register("Chat", message -> chat.update(message));
+  dispatcher.register("UserStats", message -> login.updateUserStats(message));
+  dispatcher.register("ConnectedUsers", message -> userPane.update(message));
+  dispatcher.register("PresenceSnapshot", message -> userPane.applySnapshot(message));
+  dispatcher.register("PresenceJoin", message -> userPane.join(message));
+  dispatcher.register("PresenceLeave", message -> userPane.leave(message));
+  dispatcher.register("Topscores", message -> scoreBoard.update(message));
+  dispatcher.register("WindowTopscores", message -> scoreBoard.updateWindow(message));
+  dispatcher.register("UserLoginResponse", message -> login.loginVerification(message));
+  dispatcher.register("UserCreatedResponse", message -> login.registrationVerification(message));
+  dispatcher.register("Winner", message -> gameOver(message));
+  dispatcher.register("CloseGuess", message -> showMessage("\"" + message.getString(0) + "\" is close!", false));
+  dispatcher.register("Gamestart", message -> {
+    canvas.clear();
+    showMessage("New Game has started. Guess away!", false);
+  });
+  dispatcher.register("Hello", message -> handshake(message));
+}
+
+/**
+ * Handles the answer of the server to the protocol handshake. The server answers with the negotiated
+ * protocol version and the ID it has assigned to this connection, older servers only send the protocol version.
+ *
+ * @param input the answer, formatted as "Hello;;;protocolVersion;;;connectionID".
+ */
+private void handshake(Message input) {
+  Session session = Application.getInstance().getSession();
+  session.setProtocolVersion(Protocol.negotiate(input.getInt(0)));
+  if (input.getFieldCount() > 1) {
+    session.setConnectionID(input.getInt(1));
+  }
+}
 /**
  * Handles the end-of-game logic by processing the game over message received from the server.
  * @param input The game over message received from the server, expected as "GameOver;;;username"
  */
-private void gameOver(String input) {
-  String[] messageParts = input.split(";;;");
-  String username = messageParts[1];
+private void gameOver(Message input) {
+  String username = input.getString(0);
   User currentUser = Application.getInstance().getSession().getCurrentUser();
   if (username.equals(currentUser.getUsername())) {
     //Display message you won
@@ -117,7 +162,7 @@ private void gameOver(String input) {
     showMessage("Awwww " + username + " was faster than you. Good luck next time!", true);
   }
   gameOver = true;
-  writeToServer("RequestUserStats;;;"+currentUser.getUsername());
+  writeToServer(new Message("RequestUserStats").add(currentUser.getUsername()));
 }
 /**
  * Checks if the game has ended.
@@ -146,18 +191,25 @@ public void showMessage(String message, boolean isCritical) {
 }
 
 /**
- * Attempts to connect to the server.
+ * Attempts to connect to the server and offers the binary protocol with a handshake.
+ * Until the server answers the handshake, messages are sent using the text protocol, so that older servers keep working.
  * Notifies the user about the connection status through UI messages.
  */
 public void connectToServer() {
   try {
     Client client = new Client(this, SERVERADDRESS, PORT);
     Application.getInstance().setClient(client);
+    Application.getInstance().getSession().setProtocolVersion(Protocol.TEXT);
+    Application.getInstance().getSession().resetConnectionID();
+    decoder.reset();
+    userPane.reset();
 
     if (!client.active()) {
       messagePane.showMessage("Client not active, no connection to server!", true);
     } else {
       messagePane.showMessage("Connected to server successfully!", false);
+      writeToServer(new Message("Hello").add(Protocol.VERSION));
+      scoreBoard.resubscribe();
     }
   }
   catch(Exception e) {
@@ -181,16 +233,29 @@ public void controlEvent(ControlEvent theEvent) {
     messagePane.closeMessage();
   } else if (controllerName.equals("chatBtnSend")) {
     chat.send();
+  } else if (controllerName.equals("scoreBoardBtnWindow")) {
+    scoreBoard.nextWindow();
   }
 }
 
 /**
- * Sends a formatted message to the server in a specific format.
+ * Sends a message to the server, encoded in the protocol version negotiated with the server.
  *
- * @param message The raw message to be sent to the server.
+ * @param message The message to be sent to the server.
  */
-public void writeToServer(String message) {
-  Application.getInstance().getClient().write("!MSG" + message + "MSG?");
+public void writeToServer(Message message) {
+  Application.getInstance().getClient().write(encoder.encode(message, Application.getInstance().getSession().getProtocolVersion()));
+}
+
+/**
+ * Scrolls the chat history with the mouse wheel while the mouse is over the chat.
+ *
+ * @param event the mouse wheel event.
+ */
+public void mouseWheel(MouseEvent event) {
+  if (chat.isMouseOver()) {
+    chat.scroll(event.getCount());
+  }
 }
 
 /**
@@ -102,11 +102,11 @@ public class Login extends Component {
    */
   public void register() {
     if (!username.getText().equals("") && !password.getText().equals("")) {
-      int communicationID = Application.getInstance().getSession().getCommunicationID();
+      int connectionID = Application.getInstance().getSession().getConnectionID();
       long timestamp = System.currentTimeMillis();
 
-      Application.getInstance().getClientSide().writeToServer("CreateUser;;;"+communicationID+";;;"+username.getText()
-        +";;;"+ password.getText()+";;;"+ timestamp);
+      Application.getInstance().getClientSide().writeToServer(new Message("CreateUser").add(connectionID).add(username.getText())
+        .add(password.getText()).add(timestamp));
     } else {
       Application.getInstance().getClientSide().showMessage("Please make sure to enter a password and username.", true);
     }
@@ -117,14 +117,12 @@ public class Login extends Component {
    *
    * @param input the response from the server containing the registration status
    */
-  public void registrationVerification(String input) {
+  public void registrationVerification(Message input) {
     try {
-      int communicationID = Application.getInstance().getSession().getCommunicationID();
-      String[] messageParts = input.split(";;;");
-      int communicationIDInput = Integer.parseInt(messageParts[1]);
-      String userCreatedStatus = messageParts[2];
+      int connectionIDInput = input.getInt(0);
+      String userCreatedStatus = input.getString(1);
 
-      if (communicationIDInput == communicationID) {
+      if (Application.getInstance().getSession().isAddressedToSession(connectionIDInput)) {
         if (userCreatedStatus.equals("UserCreationFailed")) {
           Application.getInstance().getClientSide().showMessage("User registration failed, please try again using a different username!", true);
         } else if (userCreatedStatus.equals("UserCreatedSuccessfully")) {
@@ -142,24 +140,22 @@ public class Login extends Component {
    */
   private void login() {
     if (!username.getText().equals("") && !password.getText().equals("")) {
-      int communicationID = Application.getInstance().getSession().getCommunicationID();
-      Application.getInstance().getClientSide().writeToServer("ValidateUserLogin;;;"+communicationID+";;;"+username.getText() +";;;"+ password.getText());
+      int connectionID = Application.getInstance().getSession().getConnectionID();
+      Application.getInstance().getClientSide().writeToServer(new Message("ValidateUserLogin").add(connectionID).add(username.getText()).add(password.getText()));
     } else {
       Application.getInstance().getClientSide().showMessage("Please make sure to enter a password and username.", true);
     }
   }
   //method that receives login verification.
-  private void loginVerification(String input) {
+  private void loginVerification(Message input) {
     try {
-      int communicationID = Application.getInstance().getSession().getCommunicationID();
-      String[] messageParts = input.split(";;;");
-      int communicationIDInput = int(messageParts[1]);
-      String usernameInput = messageParts[2];
-      int scoreInput = int(messageParts[3]);
-      long timeCreatedInput = Long.parseLong(messageParts[4]);
+      int connectionIDInput = input.getInt(0);
+      String usernameInput = input.getString(1);
+      int scoreInput = input.getInt(2);
+      long timeCreatedInput = input.getLong(3);
 
       //check if correct conversation between client and user is being listened to
-      if (communicationIDInput == communicationID) {
+      if (Application.getInstance().getSession().isAddressedToSession(connectionIDInput)) {
         if (usernameInput.equals("LoginFailed")) {
           Application.getInstance().getClientSide().showMessage("Username or password wrong, try again or register first.", true);
         } else {
@@ -179,7 +175,7 @@ public class Login extends Component {
           currentRank.show();
           currentRankTitle.show();
           Application.getInstance().getClientSide().allowChatInteraction(true);
-          Application.getInstance().getClientSide().writeToServer("RequestUserStats;;;"+currentUser.getUsername());
+          Application.getInstance().getClientSide().writeToServer(new Message("RequestUserStats").add(currentUser.getUsername()));
         }
       }
     }
@@ -191,13 +187,12 @@ public class Login extends Component {
   /**
    * Updates the user statistics displayed in the UI, such as score and rank.
    *
-   * @param input A formatted string containing the user's statistics, expected to be formatted as "UserStats;;;username;;;score;;;rank"
+   * @param input A message containing the user's statistics, expected to be formatted as "UserStats;;;username;;;score;;;rank"
    */
-  public void updateUserStats(String input) {
-    String[] messageParts = input.split(";;;");
-    String username = messageParts[1];
-    int score = int(messageParts[2]);
-    int rank = int(messageParts[3]);
+  public void updateUserStats(Message input) {
+    String username = input.getString(0);
+    int score = input.getInt(1);
+    int rank = input.getInt(2);
 
     if (Application.getInstance().getSession().getCurrentUser().getUsername().equals(username)) {
       super.drawOver();
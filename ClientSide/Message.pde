@@ -0,0 +1,138 @@
+/**
+ * Represents a single protocol message, consisting of a type and a list of fields.
+ * Fields keep the Java type they were created or decoded with, the getters convert between
+ * numbers and strings so that messages from text and binary frames can be handled the same way.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public class Message {
+  public static final int UNRESOLVED = -2;
+  private String type;
+  private int opcode;
+  private ArrayList<Object> fields;
+
+  /**
+   * Constructs a new message of the given type without any fields.
+   *
+   * @param type the type of the message, e.g. "Chat".
+   */
+  public Message(String type) {
+    this(type, UNRESOLVED); // the opcode is resolved lazily, see getOpcode()
+  }
+
+  /**
+   * Constructs a new message of a type whose opcode is already known, e.g. because it was read from a binary frame.
+   *
+   * @param type the type of the message, e.g. "Chat".
+   * @param opcode the opcode of the type as defined in {@link Protocol}.
+   */
+  public Message(String type, int opcode) {
+    this.type = type;
+    this.opcode = opcode;
+    this.fields = new ArrayList<>();
+  }
+
+  /**
+   * Appends a field to the message.
+   *
+   * @param value the value of the field, either a String or a Number.
+   * @return this message, to allow chaining.
+   */
+  public Message add(Object value) {
+    fields.add(value);
+    return this;
+  }
+
+  /**
+   * Returns the type of the message.
+   *
+   * @return the message type.
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Returns the opcode of the message type. The opcode is looked up once and then cached.
+   *
+   * @return the opcode, or -1 if the type is not part of the protocol.
+   */
+  public int getOpcode() {
+    if (opcode == UNRESOLVED) {
+      opcode = Protocol.getOpcode(type);
+    }
+    return opcode;
+  }
+
+  /**
+   * Returns the number of fields of the message.
+   *
+   * @return the number of fields.
+   */
+  public int getFieldCount() {
+    return fields.size();
+  }
+
+  /**
+   * Returns the raw value of a field.
+   *
+   * @param index the index of the field.
+   * @return the field value.
+   */
+  public Object getField(int index) {
+    return fields.get(index);
+  }
+
+  /**
+   * Returns a field as a string.
+   *
+   * @param index the index of the field.
+   * @return the field value as string.
+   */
+  public String getString(int index) {
+    return String.valueOf(fields.get(index));
+  }
+
+  /**
+   * Returns a field as an int.
+   *
+   * @param index the index of the field.
+   * @return the field value as int.
+   * @throws NumberFormatException if a text field does not contain a number.
+   */
+  public int getInt(int index) {
+    Object value = fields.get(index);
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    return Integer.parseInt(value.toString().trim());
+  }
+
+  /**
+   * Returns a field as a long.
+   *
+   * @param index the index of the field.
+   * @return the field value as long.
+   * @throws NumberFormatException if a text field does not contain a number.
+   */
+  public long getLong(int index) {
+    Object value = fields.get(index);
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    return Long.parseLong(value.toString().trim());
+  }
+
+  /**
+   * Returns the message in the text format "type;;;field;;;field", as used by the legacy protocol.
+   *
+   * @return the text representation of the message.
+   */
+  @Override
+    public String toString() {
+    StringBuilder text = new StringBuilder(type);
+    for (Object field : fields) {
+      text.append(";;;").append(field);
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Routes received messages to the handler registered for their message type.
+ * Handlers of protocol messages are kept in a table indexed by opcode, so dispatching does not depend on the number
+ * of message types. Messages that are not part of the protocol, e.g. text messages of newer servers,
+ * are looked up by their type name.
+ * Counts the dispatched messages per type as a side effect.
+ */
+public class MessageDispatcher {
+  private MessageHandler[] handlers;
+  private int[] counts;
+  private HashMap<String, MessageHandler> localHandlers;
+  private HashMap<String, Integer> localCounts;
+  private int unhandledCount;
+
+  /**
+   * Constructs a dispatcher without any registered handlers.
+   */
+  public MessageDispatcher() {
+    handlers = new MessageHandler[Protocol.getTypeCount()];
+    counts = new int[Protocol.getTypeCount()];
+    localHandlers = new HashMap<>();
+    localCounts = new HashMap<>();
+  }
+
+  /**
+   * Registers the handler of a message type, replacing any previously registered handler of that type.
+   *
+   * @param type the message type, e.g. "Chat".
+   * @param handler the handler that receives all messages of the type.
+   */
+  public void register(String type, MessageHandler handler) {
+    int opcode = Protocol.getOpcode(type);
+    if (opcode >= 0) {
+      handlers[opcode] = handler;
+    } else {
+      localHandlers.put(type, handler);
+    }
+  }
+
+  /**
+   * Passes a message to the handler registered for its type.
+   * If the handler fails, e.g. because a field of the message is missing or malformed, the failure is logged and the message is dropped.
+   *
+   * @param message the received message.
+   * @return true if a handler was registered for the message type, false otherwise.
+   */
+  public boolean dispatch(Message message) {
+    int opcode = message.getOpcode();
+    MessageHandler handler;
+    if (opcode >= 0) {
+      counts[opcode]++;
+      handler = handlers[opcode];
+    } else {
+      localCounts.merge(message.getType(), 1, Integer::sum);
+      handler = localHandlers.get(message.getType());
+    }
+    if (handler == null) {
+      unhandledCount++;
+      return false;
+    }
+    try {
+      handler.handle(message);
+    }
+    catch (RuntimeException re) {
+      // a malformed message must not stop the handling of the following messages
+      println("Could not handle the message " + message + ":");
+      re.printStackTrace();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of dispatched messages of a type.
+   *
+   * @param type the message type.
+   * @return the number of messages of the type received so far.
+   */
+  public int getCount(String type) {
+    int opcode = Protocol.getOpcode(type);
+    if (opcode >= 0) {
+      return counts[opcode];
+    }
+    return localCounts.getOrDefault(type, 0);
+  }
+
+  /**
+   * Returns the number of messages for which no handler was registered.
+   *
+   * @return the number of unhandled messages.
+   */
+  public int getUnhandledCount() {
+    return unhandledCount;
+  }
+
+  /**
+   * Returns the number of dispatched messages of all types that have been received at least once.
+   *
+   * @return the message counts keyed by message type.
+   */
+  public HashMap<String, Integer> getCounts() {
+    HashMap<String, Integer> allCounts = new HashMap<>(localCounts);
+    for (int opcode = 0; opcode < counts.length; opcode++) {
+      if (counts[opcode] > 0) {
+        allCounts.put(Protocol.getType(opcode), counts[opcode]);
+      }
+    }
+    return allCounts;
+  }
+}
@@ -0,0 +1,11 @@
+/**
+ * Handles messages of one message type received from the server, see {@link MessageDispatcher}.
+ */
+public interface MessageHandler {
+  /**
+   * Handles a received message.
+   *
+   * @param message the received message.
+   */
+  void handle(Message message);
+}
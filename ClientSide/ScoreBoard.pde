@@ -1,17 +1,23 @@
 import java.awt.Color;
+import controlP5.Button;
 import controlP5.ControlP5;
 import controlP5.Slider;
 import controlP5.Textlabel;
 
 /**
  * Represents a scoreboard component in a graphical user interface, which extends {@link Component}.
- * This class displays the alltime highscores of players dynamically using sliders to represent the scores visually.
- * It also handles receiving the scores from the server.
+ * This class displays the highscores of players dynamically using sliders to represent the scores visually.
+ * The player can switch between the total scores and the points of the day, the week and the current session,
+ * the scoreboard subscribes to the chosen window at the server. It also handles receiving the scores from the server.
  */
 public class ScoreBoard extends Component {
 
   private Slider[] sliders;
   private Textlabel title;
+  private Button windowButton;
+  private int window;
+  private final String[] WINDOWTITLES = {"Best players by total score", "Best players today", "Best players this week", "Best players this session"};
+  private final String[] WINDOWLABELS = {"Total", "Today", "Week", "Session"};
 
   /**
    * Constructs a ScoreBoard with specified parameters and initializes its components.
@@ -30,7 +36,8 @@ public class ScoreBoard extends Component {
   }
 
   /**
-   * Initializes and lays out the scoreboard's UI elements, including sliders for scores and a title label.
+   * Initializes and lays out the scoreboard's UI elements, including sliders for scores, a title label
+   * and a button to switch the score window.
    */
   @Override
     public void drawComponent() {
@@ -49,25 +56,81 @@ public class ScoreBoard extends Component {
     }
     if (title == null) {
       title = cp5.addTextlabel("scoreBoardLblTitle")
-        .setText("Best players by total score")
+        .setText(WINDOWTITLES[window])
         .setPosition(super.getX() + 15, super.getY() + 20)
         .setColor(255);
     }
+    if (windowButton == null) {
+      windowButton = cp5.addButton("scoreBoardBtnWindow")
+        .setLabel(WINDOWLABELS[window])
+        .setPosition(super.getX() + 145, super.getY() + 5)
+        .setSize(50, 15);
+    }
+  }
+
+  /**
+   * Switches to the next score window and subscribes to it at the server, which answers with the top scores of the window.
+   */
+  public void nextWindow() {
+    window = (window + 1) % WINDOWTITLES.length;
+    title.setText(WINDOWTITLES[window]);
+    windowButton.setLabel(WINDOWLABELS[window]);
+    subscribe();
+  }
+
+  /**
+   * Subscribes to the chosen score window at the server, e.g. again after reconnecting.
+   * The server starts every connection with the total scores, so nothing is sent for them.
+   */
+  public void resubscribe() {
+    if (window != 0) {
+      subscribe();
+    }
+  }
+
+  /**
+   * Sends the subscription to the chosen score window to the server.
+   */
+  private void subscribe() {
+    Application.getInstance().getClientSide().writeToServer(new Message("SubscribeTopscores").add(window));
   }
 
   /**
-   * Updates the sliders based on incoming score data. This method parses the input, updates the sliders, and sets their labels accordingly.
+   * Updates the sliders with the top scores of a score window, if it is the chosen window.
+   * Boards of a previously chosen window that were still under way are ignored.
    *
-   * @param input a semicolon-separated string containing usernames and their corresponding scores formatted as "Topscores;;;user1;;;score1..."
+   * @param input a message formatted as "WindowTopscores;;;window;;;user1;;;points1..."
    */
-  public void update(String input) {
+  public void updateWindow(Message input) {
+    if (input.getInt(0) == window) {
+      show(input, 1);
+    }
+  }
+
+  /**
+   * Updates the sliders based on incoming total score data, if the total scores are the chosen window.
+   *
+   * @param input a message containing usernames and their corresponding scores formatted as "Topscores;;;user1;;;score1..."
+   */
+  public void update(Message input) {
+    if (window == 0) {
+      show(input, 0);
+    }
+  }
+
+  /**
+   * Parses the scores, updates the sliders and sets their labels accordingly.
+   *
+   * @param input a message containing usernames and their corresponding scores.
+   * @param firstField the index of the first username in the message.
+   */
+  private void show(Message input, int firstField) {
     super.drawOver();
-    String[] messageParts = input.split(";;;");
 
     ArrayList<User> highestScoringUsers = new ArrayList<>();
-    for (int i = 1; i < messageParts.length; i += 2) {
-      String username = messageParts[i];
-      int score = Integer.parseInt(messageParts[i + 1]);
+    for (int i = firstField; i + 1 < input.getFieldCount(); i += 2) {
+      String username = input.getString(i);
+      int score = input.getInt(i + 1);
       highestScoringUsers.add(new User(username, 0, score));
     }
 
@@ -84,5 +147,8 @@ public class ScoreBoard extends Component {
         sliders[i].show();
       }
     }
+    for (int i = numUsersToUpdate; i < sliders.length; i++) {
+      sliders[i].hide();
+    }
   }
 }
@@ -1,18 +1,20 @@
 /**
- * Manages user session details including the current user's information and a unique communication ID.
+ * Manages user session details including the current user's information and the connection ID.
  * This class is responsible for handling the user's login status and session-specific identifiers that
  * facilitate communication identification among other clients with a server.
  */
 public class Session {
   private User currentUser;
-  private int communicationID;
+  private int connectionID;
+  private boolean connectionIDAssigned;
+  private int protocolVersion;
 
   /**
-   * Constructs a Session object with a randomly generated communication ID.
-   * The communication ID is used to uniquely identify the session in network communications.
+   * Constructs a Session object with a randomly generated connection ID.
+   * The random ID is only used with servers that do not assign connection IDs during the handshake.
    */
   public Session() {
-    communicationID = (int) random(1000000, 10000000);
+    resetConnectionID();
   }
 
   /**
@@ -36,12 +38,61 @@ public class Session {
   }
 
   /**
-   * Retrieves the communication ID of the session.
-   * The communication ID is used to identify the session uniquely across different network messages.
+   * Retrieves the connection ID of the session.
+   * The connection ID is sent with requests, the server echoes it in its replies.
    * 
-   * @return the communication ID as an integer.
+   * @return the connection ID as an integer.
    */
-  public int getCommunicationID(){
-    return communicationID;
+  public int getConnectionID() {
+    return connectionID;
+  }
+
+  /**
+   * Sets the connection ID the server has assigned to this client during the handshake.
+   * 
+   * @param connectionID the connection ID assigned by the server.
+   */
+  public void setConnectionID(int connectionID) {
+    this.connectionID = connectionID;
+    connectionIDAssigned = true;
+  }
+
+  /**
+   * Discards the connection ID of the previous connection when a new connection is opened, since the server
+   * may not assign IDs at all. A new random ID is used until the server assigns one during the handshake.
+   */
+  public void resetConnectionID() {
+    connectionID = (int) random(1000000, 10000000);
+    connectionIDAssigned = false;
+  }
+
+  /**
+   * Checks whether a reply from the server is addressed to this client.
+   * Servers that assign connection IDs only send replies to the requesting connection, older servers broadcast
+   * their replies to all clients, which is why the echoed ID has to match in that case.
+   * 
+   * @param connectionID the connection ID echoed in the reply.
+   * @return true if the reply is addressed to this client.
+   */
+  public boolean isAddressedToSession(int connectionID) {
+    return connectionIDAssigned || this.connectionID == connectionID;
+  }
+
+  /**
+   * Sets the protocol version negotiated with the server during the handshake.
+   * 
+   * @param protocolVersion the negotiated protocol version, {@link Protocol#TEXT} for the legacy text protocol.
+   */
+  public void setProtocolVersion(int protocolVersion) {
+    this.protocolVersion = protocolVersion;
+  }
+
+  /**
+   * Returns the protocol version used to send messages to the server.
+   * 
+   * @return the negotiated protocol version.
+   */
+  public int getProtocolVersion() {
+    return protocolVersion;
   }
 }
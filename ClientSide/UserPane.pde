@@ -7,12 +7,17 @@ import java.util.ArrayList;
 /**
  * Represents a user pane component, which extends {@link Component}.
  * Displays a list of currently connected users, based on the information provided by the server.
+ * The server sends a snapshot of the connected users once and afterwards only the users that join or leave.
+ * Each change carries a sequence number, if a change was missed a new snapshot is requested.
  *
  */
 public class UserPane extends Component {
   private Textfield[] userLabels;
   private Textlabel title;
   private int MAXUSERLABELS = 9;
+  private ArrayList<String> users;
+  private int sequence;
+  private boolean awaitingSnapshot;
 
 
   /**
@@ -29,6 +34,8 @@ public class UserPane extends Component {
   public UserPane(int x, int y, int cWidth, int cHeight, Color bgColor, Color borderColor, int radius) {
     super(x, y, cWidth, cHeight, bgColor, borderColor, radius);
     userLabels = new Textfield[MAXUSERLABELS];
+    users = new ArrayList<>();
+    awaitingSnapshot = true;
     drawComponent();
   }
 
@@ -62,36 +69,113 @@ public class UserPane extends Component {
   public void sendHeartbeat() {
     User currentUser = Application.getInstance().getSession().getCurrentUser();
     if (currentUser != null) {
-      Application.getInstance().getClientSide().writeToServer("UserHeartbeat;;;" + currentUser.getUsername());
+      Application.getInstance().getClientSide().writeToServer(new Message("UserHeartbeat").add(currentUser.getUsername()));
     }
   }
 
   /**
    * Updates the display of connected users based on a userlist from the server.
+   * Used by servers that do not send presence changes.
    *
-   * @param input a semicolon-separated string containing usernames of connected users, formatted as "ConnectedUsers;;;username1;;;username2;;;...".
+   * @param input a message containing usernames of connected users, formatted as "ConnectedUsers;;;username1;;;username2;;;...".
    */
-  public void update(String input) {
-    String[] messageParts = input.split(";;;");
+  public void update(Message input) {
+    users.clear();
+    for (int i = 0; i < input.getFieldCount(); i++) {
+      users.add(input.getString(i));
+    }
+    refresh();
+  }
+
+  /**
+   * Replaces the connected users with a snapshot from the server.
+   *
+   * @param input a message formatted as "PresenceSnapshot;;;sequence;;;username1;;;username2;;;...".
+   */
+  public void applySnapshot(Message input) {
+    sequence = input.getInt(0);
+    awaitingSnapshot = false;
+    users.clear();
+    for (int i = 1; i < input.getFieldCount(); i++) {
+      users.add(input.getString(i));
+    }
+    refresh();
+  }
+
+  /**
+   * Adds a user that has joined.
+   *
+   * @param input a message formatted as "PresenceJoin;;;sequence;;;username".
+   */
+  public void join(Message input) {
+    if (acceptChange(input.getInt(0))) {
+      users.add(input.getString(1));
+      refresh();
+    }
+  }
 
-    //hide labels and remove text
-    for (Textfield tf : userLabels) {
-      tf.hide();
-      tf.setText("");
+  /**
+   * Removes a user that has left.
+   *
+   * @param input a message formatted as "PresenceLeave;;;sequence;;;username".
+   */
+  public void leave(Message input) {
+    if (acceptChange(input.getInt(0))) {
+      users.remove(input.getString(1));
+      refresh();
     }
+  }
+
+  /**
+   * Discards the connected users, e.g. because the connection to the server was lost.
+   * The server sends a new snapshot once the connection is re-established.
+   */
+  public void reset() {
+    users.clear();
+    awaitingSnapshot = true;
+    refresh();
+  }
+
+  /**
+   * Checks whether a change directly follows the last applied change. If a change was missed,
+   * a new snapshot is requested and all changes are ignored until it has arrived.
+   *
+   * @param changeSequence the sequence number of the change.
+   * @return true if the change can be applied.
+   */
+  private boolean acceptChange(int changeSequence) {
+    if (awaitingSnapshot) {
+      return false;
+    }
+    if (changeSequence != sequence + 1) {
+      awaitingSnapshot = true;
+      Application.getInstance().getClientSide().writeToServer(new Message("RequestPresenceSnapshot"));
+      return false;
+    }
+    sequence = changeSequence;
+    return true;
+  }
+
+  /**
+   * Shows the currently connected users in the labels.
+   */
+  private void refresh() {
     super.drawOver();
 
-    if (messageParts.length < 2) {
+    if (users.isEmpty()) {
       title.setText("No connected users.");
     } else {
       title.setText("Currently connected users:");
-
-      for (int i = 1; i < messageParts.length; i++) {
-        String userDisplayName = messageParts[i].length() > 10 ? messageParts[i].substring(0, 10) : messageParts[i];
-        if (i<=MAXUSERLABELS) {
-          userLabels[i-1].setText(userDisplayName);
-          userLabels[i-1].show();
-        }
+    }
+    for (int i = 0; i < MAXUSERLABELS; i++) {
+      if (i < users.size()) {
+        String username = users.get(i);
+        String userDisplayName = username.length() > 10 ? username.substring(0, 10) : username;
+        userLabels[i].setText(userDisplayName);
+        userLabels[i].show();
+      } else {
+        userLabels[i].hide();
+        userLabels[i].setText("");
       }
     }
   }
@@ -6,10 +6,13 @@
 public static class Application {
   private static Application instance;
   private ControlP5 cp5;
-  private Server server;
+  private NetworkEngine networkEngine;
+  private MessageDispatcher messageDispatcher;
   private ServerSide serverSide;
   private UserList userList;
   private WordList wordList;
+  private PresenceService presenceService;
+  private Database database;
 
   /**
    * Static initializer that runs once to initialize exactly one instance of the Application class.
@@ -49,19 +52,35 @@ public static class Application {
   }
 
   /**
-   * Sets the Server instance for the application.
-   * @param server the Server instance to be used by the application.
+   * Sets the NetworkEngine instance for the application.
+   * @param networkEngine the NetworkEngine instance to be used by the application.
    */
-  public void setServer(Server server) {
-    this.server = server;
+  public void setNetworkEngine(NetworkEngine networkEngine) {
+    this.networkEngine = networkEngine;
   }
 
   /**
-   * Retrieves the current Server instance used by the application.
-   * @return the Server instance currently set in the application.
+   * Retrieves the current NetworkEngine instance used by the application.
+   * @return the NetworkEngine instance currently set in the application.
    */
-  public Server getServer() {
-    return server;
+  public NetworkEngine getNetworkEngine() {
+    return networkEngine;
+  }
+
+  /**
+   * Sets the MessageDispatcher instance for the application.
+   * @param messageDispatcher the MessageDispatcher instance to be used by the application.
+   */
+  public void setMessageDispatcher(MessageDispatcher messageDispatcher) {
+    this.messageDispatcher = messageDispatcher;
+  }
+
+  /**
+   * Retrieves the current MessageDispatcher instance used by the application.
+   * @return the MessageDispatcher instance currently set in the application.
+   */
+  public MessageDispatcher getMessageDispatcher() {
+    return messageDispatcher;
   }
 
   /**
@@ -109,4 +128,36 @@ public static class Application {
   public WordList getWordList() {
     return this.wordList;
   }
+
+  /**
+   * Sets the PresenceService instance for the application.
+   * @param presenceService the PresenceService instance to be used by the application.
+   */
+  public void setPresenceService(PresenceService presenceService) {
+    this.presenceService = presenceService;
+  }
+
+  /**
+   * Retrieves the current PresenceService instance used by the application.
+   * @return the PresenceService instance currently set in the application.
+   */
+  public PresenceService getPresenceService() {
+    return presenceService;
+  }
+
+  /**
+   * Sets the Database instance for the application.
+   * @param database the Database instance to be used by the application.
+   */
+  public void setDatabase(Database database) {
+    this.database = database;
+  }
+
+  /**
+   * Retrieves the current Database instance used by the application.
+   * @return the Database instance currently set in the application.
+   */
+  public Database getDatabase() {
+    return database;
+  }
 }
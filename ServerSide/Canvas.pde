@@ -1,7 +1,7 @@
 /**
  * Extends {@link Component} to represent a drawable canvas area.
  * Handles a WordPicker, ColorPicker and StrokeSizePicker for the drawing specifics.
- * Sends drawing updates to clients.
+ * Sends drawing updates to clients, streamed as strokes by a {@link StrokeBatcher}.
  */
 
 public class Canvas extends Component {
@@ -10,6 +10,9 @@ public class Canvas extends Component {
   private WordPicker wp;
   private boolean allowDrawing;
   private Textfield timer;
+  private StrokeBatcher strokeBatcher;
+  private final int STROKEFLUSHINTERVAL = 50;
+  private final int MAXSTROKEPOINTS = 256;
   /**
    * Constructs a new Canvas object with specified dimensions, colors, and border styling.
    * It initializes the component with a background and border color, dimensions, and border radius,
@@ -30,6 +33,7 @@ public class Canvas extends Component {
     Color customBlue =new Color(174, 198, 207);
 
     wp = new WordPicker(super.getX()+super.getWidth()-315, super.getY()+15, 300, 60, customBlue, customBlue, 0);
+    strokeBatcher = new StrokeBatcher(STROKEFLUSHINTERVAL, MAXSTROKEPOINTS);
   }
 
   /**
@@ -72,12 +76,16 @@ public class Canvas extends Component {
    * This method checks whether the user is authorized and if drawing is allowed. It handles mouse interactions
    * for drawing lines with specific stroke sizes and colors. It also manages network communication to broadcast
    * drawing data to other clients and provides user feedback when drawing is not allowed.
+   * Drawn segments are collected by the stroke batcher, which is flushed once the mouse is released
+   * or the flush interval has passed.
    */
   public void update() {
     //println(mouseX, mouseY, pmouseX, pmouseY);
     
+    boolean drawing = false;
     if (Application.getInstance().getUserList().getCurrentUser() != null) {
       if (isClicked()&&allowDrawing) {
+        drawing = true;
         cp.updatePosition();
         sp.updateStrokeSize();
         int strokeColor = cp.getColor();
@@ -86,8 +94,7 @@ public class Canvas extends Component {
         //only send new coordinates to client if the mouse moves and is not interacting with the controling elements.
         if (!cp.isClicked() && !sp.isClicked() && (pmouseX != mouseX || pmouseY != mouseY)) {
           //we send the absolute coordinates with 0,0 at the top left of the canvas
-          Application.getInstance().getServerSide().writeToClients("Draw;;;" + (pmouseX-super.getX()) + ";;;" + (pmouseY-super.getY()) +
-            ";;;" + (mouseX-super.getX()) + ";;;" + (mouseY-super.getY()) + ";;;" + strokeColor + ";;;" + strokeSize);
+          strokeBatcher.addSegment(pmouseX-super.getX(), pmouseY-super.getY(), mouseX-super.getX(), mouseY-super.getY(), strokeColor, strokeSize);
           stroke(strokeColor);
           strokeWeight(strokeSize);
           line(mouseX, mouseY, pmouseX, pmouseY);
@@ -98,6 +105,12 @@ public class Canvas extends Component {
     } else if (Application.getInstance().getUserList().getCurrentUser() == null && isClicked()) {
       Application.getInstance().getServerSide().showMessage("You need to login before you can draw!", true);
     }
+
+    if (drawing) {
+      strokeBatcher.flushIfDue();
+    } else {
+      strokeBatcher.endStroke();
+    }
   }
 
 
@@ -115,6 +128,7 @@ public class Canvas extends Component {
    * Clears the canvas by re-drawing the initial state of the component.
    */
   public void clear() {
+    strokeBatcher.clear();
     drawComponent();
   }
 
@@ -126,6 +140,9 @@ public class Canvas extends Component {
    * @param allowance true to allow drawing, false to prevent it.
    */
   public void allowDrawing(boolean allowance) {
+    if (!allowance) {
+      strokeBatcher.endStroke();
+    }
     allowDrawing = allowance;
   }
 
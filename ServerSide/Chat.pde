@@ -5,7 +5,11 @@ import controlP5.Textarea;
  * Handles chat interactions, displaying chat history, and processing incoming chat messages.
  */
 public class Chat extends Component {
+  private final int LINEHEIGHT = 14;
+  private final int HISTORYCAPACITY = 500;
+  private final int SCROLLLINES = 3;
   private Textarea chatHistory;
+  private ChatHistory history;
 
   /**
    * Constructs a Chat component with specified location, dimensions, and visual styling.
@@ -26,6 +30,7 @@ public class Chat extends Component {
 
   /**
    * Initializes and lays out the chat component's UI elements, specifically the chat history textarea.
+   * The textarea only shows the visible lines of the {@link ChatHistory}.
    */
   @Override
   public void drawComponent() {
@@ -35,42 +40,65 @@ public class Chat extends Component {
       chatHistory = cp5.addTextarea("chatHistory")
         .setPosition(super.getX() + 20, super.getY() + 20)
         .setSize(super.getWidth() - 40, super.getHeight() - 40)
-        .setLineHeight(14)
+        .setLineHeight(LINEHEIGHT)
         .setColorBackground(color(255))  // Set background color to white
         .setColorForeground(color(255))  // Set foreground color to white
         .setColor(color(0))              // Set text color to black
         .setText("")
         .setFont(createFont("Arial", 12));  // Set the font to Arial size 12
+      history = new ChatHistory(chatHistory, HISTORYCAPACITY, (super.getHeight() - 40) / LINEHEIGHT);
     }
   }
 
   /**
    * Processes and updates the chat history with a new incoming message.
-   * Validates each new message to check if the word was guessed and ends the game if the correct word is detected.
+   * While a game is running, validates each new message to check if the word was guessed and ends the game if the correct word is detected anywhere in the message.
+   * If the message only contains a close guess, the sender is told so privately.
    * Each incoming message is forwarded to all clients.
    *
-   * @param input the raw input string received, formatted as "Chat;;;username;;;message"
+   * @param connection the connection the message was received from.
+   * @param input the received message, formatted as "Chat;;;username;;;message"
    */
-  public void update(String input) {
+  public void update(Connection connection, Message input) {
     //println(input);  // Debug output to console
-    String[] messageParts = input.split(";;;");
-    String username = messageParts[1];
-    String message = messageParts[2];
+    String username = input.getString(0);
+    String message = input.getString(1);
     addMessageToChat(username + ": " + message);
     Application.getInstance().getServerSide().writeToClients(input);
 
-    // Check if the message contains a word that ends the game
+    // Check if the message contains a word that ends the game, messages between games are no guesses
+    if (Application.getInstance().getServerSide().isGameOver()) {
+      return;
+    }
     if (Application.getInstance().getWordList().validateWord(message)) {
       Application.getInstance().getServerSide().endGame(username);
+    } else if (Application.getInstance().getWordList().isCloseGuess(message)) {
+      Application.getInstance().getServerSide().writeToClient(connection, new Message("CloseGuess").add(message));
     }
   }
 
+  /**
+   * Scrolls the chat history, e.g. with the mouse wheel.
+   *
+   * @param steps the number of scroll steps, positive towards the latest messages, negative towards older messages.
+   */
+  public void scroll(int steps) {
+    history.scroll(steps * SCROLLLINES);
+  }
+
+  /**
+   * Closes the chat history and its archive file. Should be called before the application exits.
+   */
+  public void close() {
+    history.close();
+  }
+
   /**
    * Adds a message to the chat history.
    *
    * @param message the message to be added to the chat history.
    */
   private void addMessageToChat(String message) {
-    chatHistory.setText(chatHistory.getStringValue() + message + "\n");
+    history.add(message);
   }
 }
@@ -0,0 +1,134 @@
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * Stores the chat lines that no longer fit into the {@link ChatHistory} in a file, so that they can still be scrolled back to.
+ * The lines are appended as UTF-8, one per line. Every page of PAGESIZE lines starts at a file offset that is kept in memory,
+ * so reading a line only reads its page. The last read pages are cached, since scrolling reads the same pages repeatedly.
+ * The archive holds the lines of the current session in a temporary file, which is closed by {@link #close()} and deleted when the sketch exits.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public class ChatArchive {
+  private final int PAGESIZE = 100;
+  private final int CACHEDPAGES = 4;
+  private RandomAccessFile file;
+  private ArrayList<Long> pageOffsets;
+  private long size;
+  private int lineCount;
+  private LinkedHashMap<Integer, String[]> pageCache;
+
+  /**
+   * Creates an empty archive in a new temporary file.
+   */
+  public ChatArchive() {
+    pageOffsets = new ArrayList<>();
+    pageCache = new LinkedHashMap<>(16, 0.75f, true);
+    try {
+      File archiveFile = File.createTempFile("chat", ".log");
+      archiveFile.deleteOnExit();
+      file = new RandomAccessFile(archiveFile, "rw");
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+  }
+
+  /**
+   * Appends a line to the archive. Line breaks within the line are replaced by spaces.
+   * If the archive file could not be created, the line is dropped.
+   *
+   * @param line the chat line.
+   */
+  public void append(String line) {
+    if (file == null) {
+      return;
+    }
+    if (lineCount % PAGESIZE == 0) {
+      pageOffsets.add(size);
+    }
+    pageCache.remove(lineCount / PAGESIZE);
+    lineCount++;
+    byte[] bytes = (line.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+    try {
+      file.seek(size);
+      file.write(bytes);
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+    size += bytes.length;
+  }
+
+  /**
+   * Reads a line of the archive.
+   *
+   * @param index the index of the line, 0 is the oldest line.
+   * @return the line, or an empty string if it cannot be read.
+   */
+  public String getLine(int index) {
+    int page = index / PAGESIZE;
+    String[] lines = pageCache.get(page);
+    if (lines == null) {
+      lines = readPage(page);
+      pageCache.put(page, lines);
+      if (pageCache.size() > CACHEDPAGES) {
+        pageCache.remove(pageCache.keySet().iterator().next());
+      }
+    }
+    return index % PAGESIZE < lines.length ? lines[index % PAGESIZE] : "";
+  }
+
+  /**
+   * Returns the number of archived lines.
+   *
+   * @return the number of lines.
+   */
+  public int getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Closes the archive file. Lines appended afterwards are dropped, archived lines are read as empty lines.
+   */
+  public void close() {
+    if (file == null) {
+      return;
+    }
+    try {
+      file.close();
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+    file = null;
+    pageCache.clear();
+  }
+
+  /**
+   * Reads the lines of a page from the file.
+   *
+   * @param page the index of the page.
+   * @return the lines of the page, none if the page cannot be read.
+   */
+  private String[] readPage(int page) {
+    if (file == null) {
+      return new String[0];
+    }
+    long start = pageOffsets.get(page);
+    long end = page + 1 < pageOffsets.size() ? pageOffsets.get(page + 1) : size;
+    byte[] bytes = new byte[(int) (end - start)];
+    try {
+      file.seek(start);
+      file.readFully(bytes);
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+      return new String[0];
+    }
+    String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\n", -1);
+    // the page ends with a line break, so the last element is empty
+    return Arrays.copyOf(lines, lines.length - 1);
+  }
+}
@@ -0,0 +1,117 @@
+import controlP5.Textarea;
+
+/**
+ * Holds the chat lines of the session and shows the visible part of them in a textarea.
+ * The latest lines are kept in a ring buffer of fixed capacity, older lines move to a {@link ChatArchive} on disk,
+ * so adding a line costs the same regardless of the length of the session.
+ * Only the lines of the visible window are put into the textarea, so it never lays out more than a screen of text.
+ * The window follows the latest line until it is scrolled back, then it stays on the lines being read.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public class ChatHistory {
+  private Textarea textarea;
+  private String[] lines;
+  private int start;
+  private int size;
+  private ChatArchive archive;
+  private int visibleLines;
+  private int scrollOffset;
+
+  /**
+   * Constructs an empty history.
+   *
+   * @param textarea the textarea that shows the visible lines.
+   * @param capacity the number of latest lines kept in memory.
+   * @param visibleLines the number of lines that fit into the textarea.
+   */
+  public ChatHistory(Textarea textarea, int capacity, int visibleLines) {
+    this.textarea = textarea;
+    this.lines = new String[Math.max(1, capacity)];
+    this.visibleLines = Math.max(1, visibleLines);
+    this.archive = new ChatArchive();
+    textarea.hideScrollbar();
+  }
+
+  /**
+   * Adds a line to the history. The oldest line in memory is archived if the ring buffer is full.
+   * If the window is scrolled back, it stays on the same lines.
+   *
+   * @param line the chat line.
+   */
+  public void add(String line) {
+    if (size == lines.length) {
+      archive.append(lines[start]);
+      lines[start] = line;
+      start = (start + 1) % lines.length;
+    } else {
+      lines[(start + size) % lines.length] = line;
+      size++;
+    }
+    if (scrollOffset > 0) {
+      scrollOffset++;
+    }
+    render();
+  }
+
+  /**
+   * Scrolls the window.
+   *
+   * @param amount the number of lines to scroll, positive towards the latest line, negative towards older lines.
+   */
+  public void scroll(int amount) {
+    // while scrolled back, the last line of the window is taken by the notice of the newer lines
+    int maxOffset = getLineCount() <= visibleLines ? 0 : getLineCount() - visibleLines + 1;
+    int offset = Math.max(0, Math.min(scrollOffset - amount, maxOffset));
+    if (offset != scrollOffset) {
+      scrollOffset = offset;
+      render();
+    }
+  }
+
+  /**
+   * Returns a line of the history, reading it from the archive if it is no longer in memory.
+   *
+   * @param index the index of the line, 0 is the oldest line of the session.
+   * @return the line.
+   */
+  public String getLine(int index) {
+    if (index < archive.getLineCount()) {
+      return archive.getLine(index);
+    }
+    return lines[(start + index - archive.getLineCount()) % lines.length];
+  }
+
+  /**
+   * Returns the number of lines of the session.
+   *
+   * @return the number of lines in memory and in the archive.
+   */
+  public int getLineCount() {
+    return archive.getLineCount() + size;
+  }
+
+  /**
+   * Closes the archive of the history. Should be called before the application exits.
+   */
+  public void close() {
+    archive.close();
+  }
+
+  /**
+   * Puts the lines of the visible window into the textarea. While scrolled back, the last line tells how many newer lines there are.
+   */
+  private void render() {
+    int end = getLineCount() - scrollOffset;
+    int first = Math.max(0, end - visibleLines + (scrollOffset > 0 ? 1 : 0));
+    StringBuilder text = new StringBuilder();
+    for (int i = first; i < end; i++) {
+      text.append(getLine(i)).append('\n');
+    }
+    if (scrollOffset > 0) {
+      text.append("... ").append(scrollOffset).append(scrollOffset == 1 ? " newer line" : " newer lines").append('\n');
+    }
+    textarea.setText(text.toString());
+    // long lines wrap, so the text may not fit, the latest lines are kept in view
+    textarea.scroll(1);
+  }
+}
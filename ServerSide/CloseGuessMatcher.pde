@@ -0,0 +1,283 @@
+import java.util.HashSet;
+
+/**
+ * Detects guesses that are close to a variant of the current word, e.g. "is it a hosue?" for "House",
+ * so that the guesser can be told that the guess was close.
+ * Close means an edit distance of at most 1 for variants of at least 4 characters and at most 2 for variants of at least 8 characters,
+ * counting insertions, deletions, substitutions and transpositions of adjacent characters as one edit. Shorter variants are never close.
+ * Two strings within distance k share a string that results from deleting at most k characters from each of them.
+ * So when the word is set, the hashes of all deletions of each variant are indexed with the set of variants they belong to,
+ * and a token of a message only looks up the hashes of its own deletions, whose number does not depend on the message.
+ * The hashes of the deletions are derived from the prefix hashes of the token without building the strings.
+ * Only the variants found, including those of colliding hashes, are compared by edit distance,
+ * so a message is checked in time linear in its length. Variants of several words are compared with the same number of consecutive tokens.
+ */
+public class CloseGuessMatcher {
+  private final int MINLENGTHDISTANCE1 = 4;
+  private final int MINLENGTHDISTANCE2 = 8;
+  private final int MAXVARIANTS = 64;
+  private final long HASHBASE = 0x100000001b3L;
+  private GuessMatcher guessMatcher;
+  private String[] variants;
+  private int[] maxDistances;
+  private int[] tokenCounts;
+  private int minLength;
+  private int maxLength;
+  private int maxDistance;
+  private long[] powers;
+  private long[] prefixHashes;
+  private long[] deletionHashes;
+  private long[] deletionVariants;
+  private int[] tokenStarts = new int[16];
+  private int[] tokenEnds = new int[16];
+
+  /**
+   * Constructs a matcher without a word, which finds no close guesses.
+   *
+   * @param guessMatcher the matcher of exact guesses, whose normalization is used, so that both agree on the text of a message.
+   */
+  public CloseGuessMatcher(GuessMatcher guessMatcher) {
+    this.guessMatcher = guessMatcher;
+    setWord(null);
+  }
+
+  /**
+   * Sets the word whose variants are matched and indexes the hashes of the deletions of its normalized variants.
+   * At most 64 distinct variants are matched, each variant is a bit of the sets in the index.
+   *
+   * @param word the word in different languages, or null if no word is to be matched.
+   */
+  public void setWord(String[] word) {
+    ArrayList<String> normalizedVariants = new ArrayList<>();
+    HashSet<Integer> counts = new HashSet<>();
+    minLength = Integer.MAX_VALUE;
+    maxLength = 0;
+    maxDistance = 0;
+    int deletionCount = 0;
+    if (word != null) {
+      for (String variant : word) {
+        String pattern = variant == null ? "" : guessMatcher.normalize(variant);
+        ensureTokenCapacity(pattern.length());
+        int tokenCount = tokenize(pattern, tokenStarts, tokenEnds);
+        if (pattern.length() < MINLENGTHDISTANCE1 || tokenCount == 0 || normalizedVariants.contains(pattern)
+          || normalizedVariants.size() == MAXVARIANTS) {
+          continue;
+        }
+        normalizedVariants.add(pattern);
+        counts.add(tokenCount);
+        int length = pattern.length();
+        deletionCount += 1 + length + (getMaxDistance(pattern) == 2 ? length * (length - 1) / 2 : 0);
+        minLength = Math.min(minLength, length);
+        maxLength = Math.max(maxLength, length);
+        maxDistance = Math.max(maxDistance, getMaxDistance(pattern));
+      }
+    }
+    variants = normalizedVariants.toArray(new String[0]);
+    maxDistances = new int[variants.length];
+    tokenCounts = new int[counts.size()];
+    int i = 0;
+    for (int count : counts) {
+      tokenCounts[i++] = count;
+    }
+    powers = new long[maxLength + maxDistance + 1];
+    prefixHashes = new long[maxLength + maxDistance + 1];
+    powers[0] = 1;
+    for (i = 1; i < powers.length; i++) {
+      powers[i] = powers[i - 1] * HASHBASE;
+    }
+    // at most half of the slots are used, so that lookups of missing hashes end quickly
+    int capacity = Integer.highestOneBit(Math.max(1, deletionCount) * 2) * 2;
+    deletionHashes = new long[capacity];
+    deletionVariants = new long[capacity];
+    for (i = 0; i < variants.length; i++) {
+      maxDistances[i] = getMaxDistance(variants[i]);
+      visitDeletions(variants[i], 0, variants[i].length(), maxDistances[i], 1L << i);
+    }
+  }
+
+  /**
+   * Checks whether a chat message contains a close guess of the current word, i.e. a token or a sequence of tokens
+   * within the allowed distance of a variant, but not equal to it.
+   *
+   * @param message the message as typed by the player.
+   * @return true if the message contains a close guess.
+   */
+  public boolean matches(String message) {
+    if (variants.length == 0) {
+      return false;
+    }
+    String text = guessMatcher.normalize(message);
+    ensureTokenCapacity(text.length());
+    int messageTokenCount = tokenize(text, tokenStarts, tokenEnds);
+    for (int tokenCount : tokenCounts) {
+      for (int first = 0; first + tokenCount <= messageTokenCount; first++) {
+        int start = tokenStarts[first];
+        int end = tokenEnds[first + tokenCount - 1];
+        if (end - start < minLength - maxDistance || end - start > maxLength + maxDistance) {
+          continue;
+        }
+        long found = visitDeletions(text, start, end, maxDistance, 0);
+        if (found == 0) {
+          continue;
+        }
+        String candidate = text.substring(start, end);
+        for (int i = 0; i < variants.length; i++) {
+          if ((found & 1L << i) != 0) {
+            int distance = distance(candidate, variants[i], maxDistances[i]);
+            if (distance > 0 && distance <= maxDistances[i]) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits a text into tokens, i.e. the runs of letters and digits.
+   *
+   * @param text the normalized text.
+   * @param starts the array the start index of each token is written to, at least half as long as the text plus one.
+   * @param ends the array the end index (exclusive) of each token is written to, as long as the starts.
+   * @return the number of tokens.
+   */
+  public int tokenize(String text, int[] starts, int[] ends) {
+    int count = 0;
+    for (int i = 0; i < text.length(); i++) {
+      boolean token = Character.isLetterOrDigit(text.charAt(i));
+      if (token && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+        starts[count] = i;
+      }
+      if (token && (i == text.length() - 1 || !Character.isLetterOrDigit(text.charAt(i + 1)))) {
+        ends[count++] = i + 1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Computes the edit distance of two strings, counting a transposition of adjacent characters as one edit
+   * (optimal string alignment). The computation stops early once the distance exceeds the given maximum.
+   *
+   * @param a the first string.
+   * @param b the second string.
+   * @param maxDistance the maximum distance of interest.
+   * @return the distance, or a value above the maximum if the strings are further apart.
+   */
+  public int distance(String a, String b, int maxDistance) {
+    if (Math.abs(a.length() - b.length()) > maxDistance) {
+      return maxDistance + 1;
+    }
+    // the distances of the prefixes of a to all prefixes of b, for the current and the two previous prefixes of a
+    int[] twoBack = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMinimum = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          current[j] = Math.min(current[j], twoBack[j - 2] + 1);
+        }
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+      // the distances never fall below the minimum of a row again
+      if (rowMinimum > maxDistance) {
+        return maxDistance + 1;
+      }
+      int[] recycled = twoBack;
+      twoBack = previous;
+      previous = current;
+      current = recycled;
+    }
+    return previous[b.length()];
+  }
+
+  /**
+   * Returns the distance up to which a guess is close to a variant.
+   *
+   * @param variant the normalized variant.
+   * @return 2 for long variants, otherwise 1.
+   */
+  private int getMaxDistance(String variant) {
+    return variant.length() < MINLENGTHDISTANCE2 ? 1 : 2;
+  }
+
+  /**
+   * Grows the token arrays, so that they can hold the tokens of a text.
+   *
+   * @param textLength the length of the text.
+   */
+  private void ensureTokenCapacity(int textLength) {
+    if (tokenStarts.length < textLength / 2 + 1) {
+      tokenStarts = new int[textLength / 2 + 1];
+      tokenEnds = new int[textLength / 2 + 1];
+    }
+  }
+
+  /**
+   * Visits the hashes of a part of a text and of all strings that result from deleting up to two of its characters.
+   * The hash of a string s of length n is the sum of s[i] * HASHBASE^(n - 1 - i), computed without overflow checks.
+   * Each hash is either added to the index with the given variant or looked up in the index.
+   *
+   * @param text the text.
+   * @param start the start index of the part.
+   * @param end the end index (exclusive) of the part, at most the longest variant plus the maximum distance after start.
+   * @param maxDeletions the maximum number of deleted characters, 0 to 2.
+   * @param variant the bit of the variant to add the hashes to the index, or 0 to look them up.
+   * @return the variants of the hashes that were looked up, 0 when adding.
+   */
+  private long visitDeletions(String text, int start, int end, int maxDeletions, long variant) {
+    int length = end - start;
+    for (int i = 0; i < length; i++) {
+      prefixHashes[i + 1] = prefixHashes[i] * HASHBASE + text.charAt(start + i);
+    }
+    long found = visitHash(prefixHashes[length], variant);
+    for (int i = 0; i < length && maxDeletions > 0; i++) {
+      long head = prefixHashes[i];
+      found |= visitHash(head * powers[length - 1 - i] + substringHash(i + 1, length), variant);
+      for (int j = i + 1; j < length && maxDeletions > 1; j++) {
+        found |= visitHash(head * powers[length - 2 - i] + substringHash(i + 1, j) * powers[length - 1 - j] + substringHash(j + 1, length), variant);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the hash of a part of the text whose prefix hashes were computed last.
+   *
+   * @param start the start index of the part within the hashed text.
+   * @param end the end index (exclusive) of the part within the hashed text.
+   * @return the hash of the part.
+   */
+  private long substringHash(int start, int end) {
+    return prefixHashes[end] - prefixHashes[start] * powers[end - start];
+  }
+
+  /**
+   * Adds a variant to the set of a hash in the index, or looks up the set of a hash, using open addressing with linear probing.
+   *
+   * @param hash the hash of a deletion.
+   * @param variant the bit of the variant to add, or 0 to look up the hash.
+   * @return the variants of the hash when looking up, 0 when adding.
+   */
+  private long visitHash(long hash, long variant) {
+    long mixed = hash * 0x9e3779b97f4a7c15L;
+    int slot = (int) (mixed ^ mixed >>> 32) & (deletionHashes.length - 1);
+    while (deletionVariants[slot] != 0 && deletionHashes[slot] != hash) {
+      slot = (slot + 1) & (deletionHashes.length - 1);
+    }
+    if (variant == 0) {
+      return deletionVariants[slot];
+    }
+    deletionHashes[slot] = hash;
+    deletionVariants[slot] |= variant;
+    return 0;
+  }
+}
@@ -105,6 +105,15 @@ public class Component {
     return mousePressed && mouseX > x && mouseX < x + cWidth && mouseY > y && mouseY < y + cHeight;
   }
 
+  /**
+   * Determines if the mouse is over the component.
+   *
+   * @return true if the mouse is within the bounds of the component, false otherwise.
+   */
+  public boolean isMouseOver() {
+    return mouseX > x && mouseX < x + cWidth && mouseY > y && mouseY < y + cHeight;
+  }
+
   /**
    * Draws a rectangle over the component using the current background color.
    */
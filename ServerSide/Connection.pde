@@ -0,0 +1,186 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the connection to a single client on the server side.
+ * Keeps track of the protocol version negotiated with the client, so that messages can be
+ * encoded in a format the client understands, and queues outgoing frames for the {@link NetworkEngine}.
+ * A client that does not read its frames fast enough is dropped once 4 MiB of frames are waiting, so that it cannot exhaust the memory of the server.
+ */
+public class Connection {
+  private final int MAXQUEUEDBYTES = 1 << 22;
+  private int id;
+  private SocketChannel channel;
+  private NetworkEngine engine;
+  private SelectionKey selectionKey;
+  private volatile int protocolVersion;
+  private int scoreWindow;
+  private MessageDecoder decoder;
+  private ConcurrentLinkedQueue<ByteBuffer> outgoing;
+  private AtomicBoolean writeScheduled;
+  private AtomicInteger queuedBytes;
+  private volatile boolean overflowed;
+  private volatile boolean discarded;
+
+  /**
+   * Constructs a connection for a newly connected client.
+   * Until a handshake has been received, the legacy text protocol is used.
+   *
+   * @param id the identifier of the connection, unique while the server is running.
+   * @param channel the socket channel of the client.
+   * @param engine the network engine that writes the queued frames.
+   */
+  public Connection(int id, SocketChannel channel, NetworkEngine engine) {
+    this.id = id;
+    this.channel = channel;
+    this.engine = engine;
+    this.protocolVersion = Protocol.TEXT;
+    this.decoder = new MessageDecoder();
+    this.outgoing = new ConcurrentLinkedQueue<>();
+    this.writeScheduled = new AtomicBoolean(false);
+    this.queuedBytes = new AtomicInteger();
+  }
+
+  /**
+   * Returns the identifier of this connection.
+   *
+   * @return the connection id.
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Returns the socket channel of the client.
+   *
+   * @return the socket channel.
+   */
+  public SocketChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Returns the selection key of the channel.
+   *
+   * @return the selection key.
+   */
+  public SelectionKey getSelectionKey() {
+    return selectionKey;
+  }
+
+  /**
+   * Sets the selection key of the channel, once it has been registered with the selector.
+   *
+   * @param selectionKey the selection key.
+   */
+  public void setSelectionKey(SelectionKey selectionKey) {
+    this.selectionKey = selectionKey;
+  }
+
+  /**
+   * Returns the decoder of this connection, which keeps incomplete frames between reads.
+   * Only used by the network thread.
+   *
+   * @return the stream decoder of the connection.
+   */
+  public MessageDecoder getDecoder() {
+    return decoder;
+  }
+
+  /**
+   * Returns the protocol version negotiated with the client.
+   *
+   * @return the protocol version, {@link Protocol#TEXT} for legacy clients.
+   */
+  public int getProtocolVersion() {
+    return protocolVersion;
+  }
+
+  /**
+   * Sets the protocol version negotiated with the client.
+   *
+   * @param protocolVersion the negotiated protocol version.
+   */
+  public void setProtocolVersion(int protocolVersion) {
+    this.protocolVersion = protocolVersion;
+  }
+
+  /**
+   * Returns the score window whose top scores the client has subscribed to.
+   *
+   * @return 0 for the total scores, the index of the time window plus 1 otherwise.
+   */
+  public int getScoreWindow() {
+    return scoreWindow;
+  }
+
+  /**
+   * Sets the score window whose top scores the client has subscribed to.
+   *
+   * @param scoreWindow 0 for the total scores, the index of the time window plus 1 otherwise.
+   */
+  public void setScoreWindow(int scoreWindow) {
+    this.scoreWindow = scoreWindow;
+  }
+
+  /**
+   * Queues an already encoded frame for the client. The frame is written by the network thread.
+   * If the queue is full, the frame is dropped and the network thread closes the connection.
+   * Frames for a discarded connection are dropped.
+   *
+   * @param frame the encoded frame.
+   */
+  public void write(byte[] frame) {
+    if (!overflowed && !discarded) {
+      if (queuedBytes.addAndGet(frame.length) > MAXQUEUEDBYTES) {
+        queuedBytes.addAndGet(-frame.length);
+        overflowed = true;
+      } else {
+        outgoing.offer(ByteBuffer.wrap(frame));
+      }
+    }
+    if (writeScheduled.compareAndSet(false, true)) {
+      engine.scheduleWrite(this);
+    }
+  }
+
+  /**
+   * Writes as many queued frames as the socket accepts without blocking. Only called by the network thread.
+   *
+   * @return true if all queued frames have been written, false if the socket buffer is full.
+   * @throws IOException if writing to the socket failed.
+   */
+  public boolean flush() throws IOException {
+    // reset first, frames queued from now on schedule another flush
+    writeScheduled.set(false);
+    ByteBuffer frame;
+    while ((frame = outgoing.peek()) != null) {
+      channel.write(frame);
+      if (frame.hasRemaining()) {
+        return false;
+      }
+      outgoing.poll();
+      queuedBytes.addAndGet(-frame.capacity());
+    }
+    return true;
+  }
+
+  /**
+   * Drops the queued frames of a connection that has been closed, as well as all frames written to it afterwards,
+   * e.g. the answer of a login whose password is still being hashed when the client leaves.
+   */
+  public void discard() {
+    discarded = true;
+    outgoing.clear();
+    queuedBytes.set(0);
+  }
+
+  /**
+   * Checks whether frames had to be dropped because the client did not read them fast enough.
+   *
+   * @return true if the queue of outgoing frames overflowed and the connection must be closed.
+   */
+  public boolean isOverflowed() {
+    return overflowed;
+  }
+}
@@ -0,0 +1,106 @@
+import de.bezier.data.sql.*;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Owns the single connection of the game thread to the SQLite database, shared by {@link UserList} and {@link WordList}.
+ * The connection is opened once and uses write-ahead logging, so that the background threads, which use their own
+ * connections, can read and write without blocking the game thread. Prepared statements are cached per SQL string.
+ */
+public class Database {
+  private final int BUSYTIMEOUT = 5000;
+  private String path;
+  private java.sql.Connection connection;
+  private HashMap<String, PreparedStatement> statements;
+
+  /**
+   * Opens the connection to the database and enables write-ahead logging.
+   *
+   * @param dataSource the database source path, relative to the sketch.
+   */
+  public Database(String dataSource) {
+    path = Application.getInstance().getServerSide().sketchPath(dataSource);
+    statements = new HashMap<>();
+    SQLite db = new SQLite(Application.getInstance().getServerSide(), dataSource);
+    if (db.connect()) {
+      connection = db.getConnection();
+      try {
+        execute("PRAGMA journal_mode = WAL");
+        execute("PRAGMA synchronous = NORMAL");
+        execute("PRAGMA busy_timeout = " + BUSYTIMEOUT);
+      }
+      catch (SQLException sqle) {
+        sqle.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Returns the prepared statement for a SQL string, the statement is prepared on its first use.
+   * The returned statement is shared and must not be closed by the caller.
+   *
+   * @param sql the SQL string with ? as parameter placeholders.
+   * @return the prepared statement with cleared parameters.
+   * @throws SQLException if the statement cannot be prepared.
+   */
+  public PreparedStatement prepare(String sql) throws SQLException {
+    PreparedStatement statement = statements.get(sql);
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+      statements.put(sql, statement);
+    } else {
+      statement.clearParameters();
+    }
+    return statement;
+  }
+
+  /**
+   * Executes a SQL string without parameters and result, e.g. to create an index.
+   *
+   * @param sql the SQL string to execute.
+   * @throws SQLException if the execution fails.
+   */
+  public void execute(String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  /**
+   * Returns the connection of the game thread, e.g. to group statements into a transaction.
+   * The connection must not be closed by the caller.
+   *
+   * @return the JDBC connection.
+   */
+  public java.sql.Connection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Returns the absolute path of the database file, used by the background threads to open their own connections.
+   *
+   * @return the absolute path of the database.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Closes the cached statements and the connection.
+   */
+  public void close() {
+    try {
+      for (PreparedStatement statement : statements.values()) {
+        statement.close();
+      }
+      statements.clear();
+      if (connection != null) {
+        connection.close();
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+  }
+}
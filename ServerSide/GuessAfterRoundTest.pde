@@ -0,0 +1,67 @@
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * Checks that a chat message sent after the round has ended is neither a guess nor a close guess,
+ * e.g. "it was a house" after the house was guessed, so the game is not ended and the points are not awarded a second time.
+ */
+public class GuessAfterRoundTest extends SketchTest {
+  private final String[] WORDS = {"House", "Garden", "Bicycle"};
+
+  /**
+   * Plays a round with a word of a temporary word list, ends it like {@link ServerSide#endGame(String)} does and sends chat messages afterwards.
+   */
+  @Override
+    public void run() {
+    try {
+      File directory = Files.createTempDirectory("round").toFile();
+      Database database = new Database(new File(directory, "words.sqlite").getAbsolutePath());
+      WordList wordList = null;
+      try {
+        createWords(database);
+        wordList = new WordList(database, directory);
+        String[] word = wordList.getWordSelection().get(0);
+        String guess = word[1].toLowerCase();
+
+        wordList.setCurrentWord(word);
+        check(wordList.validateWord("is it a " + guess + "?"), "the word is guessed during the round");
+        check(wordList.isCloseGuess("is it a " + guess + "x?"), "a typo is a close guess during the round");
+
+        wordList.setCurrentWord(null);
+        check(!wordList.validateWord("it was a " + guess), "a message after the round is no guess");
+        check(!wordList.isCloseGuess("it was a " + guess + "x"), "a message after the round is no close guess");
+      }
+      finally {
+        if (wordList != null) {
+          wordList.close();
+        }
+        database.close();
+      }
+      deleteDirectory(directory);
+    }
+    catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Creates the words table with each test word being the same in all languages.
+   *
+   * @param database the test database.
+   * @throws SQLException if the words cannot be inserted.
+   */
+  private void createWords(Database database) throws SQLException {
+    String[] languages = new WordPackCompiler().getLanguages();
+    database.execute("CREATE TABLE words (id INTEGER PRIMARY KEY, " + String.join(" TEXT, ", languages) + " TEXT)");
+    for (String word : WORDS) {
+      PreparedStatement statement = database.prepare("INSERT INTO words (" + String.join(", ", languages) + ") VALUES ("
+        + String.join(", ", Collections.nCopies(languages.length, "?")) + ")");
+      for (int i = 0; i < languages.length; i++) {
+        statement.setString(i + 1, word);
+      }
+      statement.executeUpdate();
+    }
+  }
+}
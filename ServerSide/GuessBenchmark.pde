@@ -0,0 +1,326 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Replays a recorded chat stream through the guess detection and compares the {@link GuessMatcher} automaton
+ * with the comparison that lowercased every language variant on every message and with a naive search of every variant in the message.
+ * The {@link CloseGuessMatcher} is compared with computing the edit distance of every variant to every token of the message.
+ * A chat stream is a tab separated file in data/chats. A line "word" followed by the variants starts a round with that word,
+ * a line "chat" followed by the username and the message is a chat message of the round.
+ * Each stream is also replayed with typos in a part of its messages, which are generated with a fixed seed, so the close guesses are comparable between runs.
+ * Run the server sketch with the argument "--benchmark" to print the results.
+ */
+public class GuessBenchmark {
+  private final int REPETITIONS = 200;
+  private final double TYPORATE = 0.35;
+  private final long TYPOSEED = 42;
+
+  /**
+   * Replays all chat streams in a directory, each as recorded and with typos, and prints the time per message and the number of detected guesses.
+   * The time of the automaton includes building it once per round, the build time per round is also printed on its own.
+   *
+   * @param directory the directory holding the chat streams.
+   */
+  public void run(File directory) {
+    File[] streams = directory.listFiles();
+    if (streams == null || streams.length == 0) {
+      println("No chat streams found in " + directory);
+      return;
+    }
+    Arrays.sort(streams);
+    println("stream                 messages   equals ns/message (found)   search ns/message (found)   automaton ns/message (found)   build us/round"
+      + "   close distance ns/message (found)   close index ns/message (found)");
+    for (File stream : streams) {
+      if (stream.getName().endsWith(".tsv")) {
+        String[][] events = load(stream);
+        replay(stream.getName(), events);
+        replay(stream.getName() + " + typos", addTypos(events));
+      }
+    }
+  }
+
+  /**
+   * Reads a chat stream and splits its lines into their fields.
+   *
+   * @param stream the chat stream file.
+   * @return the parsed lines of the chat stream.
+   */
+  private String[][] load(File stream) {
+    String[] lines = loadStrings(stream.getAbsolutePath());
+    String[][] events = new String[lines.length][];
+    for (int i = 0; i < lines.length; i++) {
+      events[i] = split(lines[i], '\t');
+    }
+    return events;
+  }
+
+  /**
+   * Copies a chat stream and adds a typo to a part of its messages, like a class typing in a hurry.
+   * A typo substitutes, deletes or inserts a letter, or swaps two adjacent characters, at a random position of the message.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the parsed lines with the changed messages.
+   */
+  private String[][] addTypos(String[][] events) {
+    Random random = new Random(TYPOSEED);
+    String[][] typoEvents = new String[events.length][];
+    for (int i = 0; i < events.length; i++) {
+      typoEvents[i] = events[i].clone();
+      String message = events[i][0].equals("chat") ? events[i][2] : "";
+      if (message.length() >= 2 && random.nextDouble() < TYPORATE) {
+        StringBuilder typo = new StringBuilder(message);
+        int position = random.nextInt(message.length() - 1);
+        char letter = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+        case 0:
+          typo.setCharAt(position, letter);
+          break;
+        case 1:
+          typo.deleteCharAt(position);
+          break;
+        case 2:
+          typo.insert(position, letter);
+          break;
+        default:
+          typo.setCharAt(position, message.charAt(position + 1));
+          typo.setCharAt(position + 1, message.charAt(position));
+        }
+        typoEvents[i][2] = typo.toString();
+      }
+    }
+    return typoEvents;
+  }
+
+  /**
+   * Replays a single chat stream. Every measurement is repeated after a warm-up, so that the JIT compiler has optimized it.
+   *
+   * @param name the name of the chat stream that is printed.
+   * @param events the parsed lines of the chat stream.
+   */
+  private void replay(String name, String[][] events) {
+    int messages = 0;
+    int rounds = 0;
+    for (String[] event : events) {
+      if (event[0].equals("chat")) {
+        messages++;
+      } else {
+        rounds++;
+      }
+    }
+
+    int[] found = new int[5];
+    double[] time = new double[5];
+    for (int round = 0; round < 2; round++) {
+      for (int method = 0; method < 5; method++) {
+        long start = System.nanoTime();
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+          switch (method) {
+          case 0:
+            found[method] = replayEquals(events);
+            break;
+          case 1:
+            found[method] = replaySearch(events);
+            break;
+          case 2:
+            found[method] = replayAutomaton(events);
+            break;
+          case 3:
+            found[method] = replayCloseDistance(events);
+            break;
+          default:
+            found[method] = replayCloseIndex(events);
+          }
+        }
+        time[method] = (System.nanoTime() - start) / (double) (REPETITIONS * messages);
+      }
+    }
+    GuessMatcher matcher = new GuessMatcher();
+    long start = System.nanoTime();
+    for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+      for (String[] event : events) {
+        if (event[0].equals("word")) {
+          matcher.setWord(Arrays.copyOfRange(event, 1, event.length));
+        }
+      }
+    }
+    double buildTime = (System.nanoTime() - start) / (REPETITIONS * rounds * 1000.0);
+    println(String.format("%-22s %8d %19.1f (%4d) %19.1f (%4d) %22.1f (%4d) %16.1f %27.1f (%4d) %24.1f (%4d)", name, messages,
+      time[0], found[0], time[1], found[1], time[2], found[2], buildTime, time[3], found[3], time[4], found[4]));
+  }
+
+  /**
+   * Compares whole messages by lowercasing the message and every variant, like WordList did before the matcher.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the number of detected guesses.
+   */
+  private int replayEquals(String[][] events) {
+    String[] currentWord = null;
+    int found = 0;
+    for (String[] event : events) {
+      if (event[0].equals("word")) {
+        currentWord = Arrays.copyOfRange(event, 1, event.length);
+      } else {
+        String guess = event[2];
+        for (int i = 0; i < currentWord.length; i++) {
+          if (currentWord[i].toLowerCase().equals(guess.toLowerCase())) {
+            found++;
+            break;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Searches every normalized variant in the normalized message, one search per variant.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the number of detected guesses.
+   */
+  private int replaySearch(String[][] events) {
+    GuessMatcher matcher = new GuessMatcher();
+    String[] variants = new String[0];
+    int found = 0;
+    for (String[] event : events) {
+      if (event[0].equals("word")) {
+        variants = new String[event.length - 1];
+        for (int i = 1; i < event.length; i++) {
+          variants[i - 1] = matcher.normalize(event[i]);
+        }
+      } else if (search(matcher, variants, matcher.normalize(event[2]))) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Searches each variant as a whole token in a text.
+   *
+   * @param matcher the matcher providing the token boundary check.
+   * @param variants the normalized variants.
+   * @param text the normalized message.
+   * @return true if a variant was found.
+   */
+  private boolean search(GuessMatcher matcher, String[] variants, String text) {
+    for (String variant : variants) {
+      for (int start = text.indexOf(variant); start >= 0; start = text.indexOf(variant, start + 1)) {
+        int end = start + variant.length() - 1;
+        if (matcher.isTokenBoundary(text, start - 1, start) && matcher.isTokenBoundary(text, end + 1, end)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Detects the guesses with the automaton of the guess matcher, which is built once per round.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the number of detected guesses.
+   */
+  private int replayAutomaton(String[][] events) {
+    GuessMatcher matcher = new GuessMatcher();
+    int found = 0;
+    for (String[] event : events) {
+      if (event[0].equals("word")) {
+        matcher.setWord(Arrays.copyOfRange(event, 1, event.length));
+      } else if (matcher.matches(event[2])) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Detects the close guesses by computing the edit distance of every normalized variant to every sequence of tokens of the message
+   * that the close guess matcher compares, without its index.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the number of detected close guesses.
+   */
+  private int replayCloseDistance(String[][] events) {
+    GuessMatcher guessMatcher = new GuessMatcher();
+    CloseGuessMatcher matcher = new CloseGuessMatcher(guessMatcher);
+    ArrayList<String> variants = new ArrayList<>();
+    ArrayList<Integer> maxDistances = new ArrayList<>();
+    HashSet<Integer> tokenCounts = new HashSet<>();
+    int found = 0;
+    for (String[] event : events) {
+      if (event[0].equals("word")) {
+        guessMatcher.setWord(Arrays.copyOfRange(event, 1, event.length));
+        variants.clear();
+        maxDistances.clear();
+        tokenCounts.clear();
+        for (int i = 1; i < event.length; i++) {
+          String variant = guessMatcher.normalize(event[i]);
+          int tokenCount = matcher.tokenize(variant, new int[variant.length() / 2 + 1], new int[variant.length() / 2 + 1]);
+          if (variant.length() >= 4 && tokenCount > 0 && !variants.contains(variant)) {
+            variants.add(variant);
+            maxDistances.add(variant.length() < 8 ? 1 : 2);
+            tokenCounts.add(tokenCount);
+          }
+        }
+      } else if (!guessMatcher.matches(event[2]) && isCloseByDistance(matcher, guessMatcher.normalize(event[2]), variants, maxDistances, tokenCounts)) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Compares every sequence of tokens of a text with every variant.
+   *
+   * @param matcher the matcher providing the tokenization and the edit distance.
+   * @param text the normalized message.
+   * @param variants the normalized variants.
+   * @param maxDistances the distance up to which a guess is close to each variant.
+   * @param tokenCounts the numbers of tokens of the variants.
+   * @return true if a sequence of tokens is close to a variant.
+   */
+  private boolean isCloseByDistance(CloseGuessMatcher matcher, String text, ArrayList<String> variants, ArrayList<Integer> maxDistances,
+    HashSet<Integer> tokenCounts) {
+    int[] starts = new int[text.length() / 2 + 1];
+    int[] ends = new int[text.length() / 2 + 1];
+    int messageTokenCount = matcher.tokenize(text, starts, ends);
+    for (int tokenCount : tokenCounts) {
+      for (int first = 0; first + tokenCount <= messageTokenCount; first++) {
+        String candidate = text.substring(starts[first], ends[first + tokenCount - 1]);
+        for (int i = 0; i < variants.size(); i++) {
+          int distance = matcher.distance(candidate, variants.get(i), maxDistances.get(i));
+          if (distance > 0 && distance <= maxDistances.get(i)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Detects the close guesses with the index of the close guess matcher, which is built once per round.
+   * Like on the server, only messages without an exact guess are checked.
+   *
+   * @param events the parsed lines of the chat stream.
+   * @return the number of detected close guesses.
+   */
+  private int replayCloseIndex(String[][] events) {
+    GuessMatcher guessMatcher = new GuessMatcher();
+    CloseGuessMatcher matcher = new CloseGuessMatcher(guessMatcher);
+    int found = 0;
+    for (String[] event : events) {
+      if (event[0].equals("word")) {
+        String[] word = Arrays.copyOfRange(event, 1, event.length);
+        guessMatcher.setWord(word);
+        matcher.setWord(word);
+      } else if (!guessMatcher.matches(event[2]) && matcher.matches(event[2])) {
+        found++;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,176 @@
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Detects all language variants of the current word inside chat messages, e.g. "is it a house?" guesses "House".
+ * The normalized variants are compiled into an Aho-Corasick automaton when the word is set,
+ * so every message is normalized once and scanned once in linear time, regardless of the number of variants.
+ * The automaton is stored as a complete transition table over the characters of the variants,
+ * so scanning a character is a lookup of its column, direct for ASCII and a binary search otherwise, and a table lookup.
+ * A variant only counts if it is a whole token, i.e. it is not preceded or followed by a letter or digit,
+ * so "cat" does not match "category". Ideographic characters count as token boundaries, since those scripts do not separate words.
+ * Normalization lowercases, removes accents and trims and collapses whitespace,
+ * e.g. "  Éléphant " and "elephant" match the same word.
+ */
+public class GuessMatcher {
+  private char[] alphabet;
+  private int[] asciiColumns = new int[128];
+  private int[][] transitions;
+  private int[] dictionaryLink;
+  private int[] matchLength;
+
+  /**
+   * Constructs a matcher without a word, which matches no message.
+   */
+  public GuessMatcher() {
+    setWord(null);
+  }
+
+  /**
+   * Sets the word whose variants are matched and builds the automaton of its normalized variants.
+   * Each state of the automaton is a prefix of a variant. The failure link of a state leads to the state of its longest suffix
+   * that is also a prefix of a variant, the dictionary link to the longest such suffix that is a complete variant.
+   * The failure links are resolved into the transition table, so scanning never has to follow them.
+   *
+   * @param word the word in different languages, or null if no word is to be matched.
+   */
+  public void setWord(String[] word) {
+    ArrayList<HashMap<Character, Integer>> trie = new ArrayList<>();
+    trie.add(new HashMap<Character, Integer>());
+    ArrayList<Integer> lengths = new ArrayList<>();
+    lengths.add(0);
+    StringBuilder characters = new StringBuilder();
+    if (word != null) {
+      for (String variant : word) {
+        String pattern = variant == null ? "" : normalize(variant);
+        if (pattern.isEmpty()) {
+          continue;
+        }
+        characters.append(pattern);
+        int state = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+          Integer next = trie.get(state).get(pattern.charAt(i));
+          if (next == null) {
+            next = trie.size();
+            trie.get(state).put(pattern.charAt(i), next);
+            trie.add(new HashMap<Character, Integer>());
+            lengths.add(0);
+          }
+          state = next;
+        }
+        lengths.set(state, pattern.length());
+      }
+    }
+    char[] sorted = characters.toString().toCharArray();
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    alphabet = Arrays.copyOf(sorted, distinct);
+    for (char c = 0; c < asciiColumns.length; c++) {
+      asciiColumns[c] = Arrays.binarySearch(alphabet, c);
+    }
+
+    int states = trie.size();
+    int[] failure = new int[states];
+    transitions = new int[states][alphabet.length];
+    dictionaryLink = new int[states];
+    matchLength = new int[states];
+    for (int state = 0; state < states; state++) {
+      matchLength[state] = lengths.get(state);
+    }
+    dictionaryLink[0] = -1;
+    // breadth first, so the links and transitions of all shorter prefixes are known
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    queue.add(0);
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      for (int column = 0; column < alphabet.length; column++) {
+        Integer child = trie.get(state).get(alphabet[column]);
+        if (child == null) {
+          transitions[state][column] = state == 0 ? 0 : transitions[failure[state]][column];
+        } else {
+          transitions[state][column] = child;
+          failure[child] = state == 0 ? 0 : transitions[failure[state]][column];
+          dictionaryLink[child] = matchLength[failure[child]] > 0 ? failure[child] : dictionaryLink[failure[child]];
+          queue.add(child);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks whether a chat message contains a variant of the current word as a whole token.
+   *
+   * @param message the message as typed by the player.
+   * @return true if the normalized message contains a normalized variant.
+   */
+  public boolean matches(String message) {
+    String text = normalize(message);
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      int column = c < asciiColumns.length ? asciiColumns[c] : Arrays.binarySearch(alphabet, c);
+      state = column < 0 ? 0 : transitions[state][column];
+      for (int match = matchLength[state] > 0 ? state : dictionaryLink[state]; match != -1; match = dictionaryLink[match]) {
+        int start = i - matchLength[match] + 1;
+        if (isTokenBoundary(text, start - 1, start) && isTokenBoundary(text, i + 1, i)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the character next to a match allows the match to be a whole token.
+   *
+   * @param text the normalized text.
+   * @param index the index of the neighbouring character, may lie outside of the text.
+   * @param matchIndex the index of the character of the match next to it.
+   * @return true if there is no neighbouring letter or digit, or if one of both characters is ideographic.
+   */
+  public boolean isTokenBoundary(String text, int index, int matchIndex) {
+    if (index < 0 || index >= text.length()) {
+      return true;
+    }
+    char neighbour = text.charAt(index);
+    return !Character.isLetterOrDigit(neighbour) || Character.isIdeographic(neighbour) || Character.isIdeographic(text.charAt(matchIndex));
+  }
+
+  /**
+   * Normalizes a text for matching. Texts that only consist of ASCII characters skip the Unicode decomposition,
+   * which is only needed to remove accents.
+   *
+   * @param text the text to normalize.
+   * @return the lowercase text without accents, leading and trailing whitespace and with single spaces between words.
+   */
+  public String normalize(String text) {
+    boolean ascii = true;
+    for (int i = 0; i < text.length() && ascii; i++) {
+      ascii = text.charAt(i) < 128;
+    }
+    if (!ascii) {
+      text = Normalizer.normalize(text, Normalizer.Form.NFD);
+    }
+    StringBuilder normalized = new StringBuilder(text.length());
+    boolean space = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isWhitespace(c)) {
+        space = normalized.length() > 0;
+      } else if (ascii || Character.getType(c) != Character.NON_SPACING_MARK) {
+        if (space) {
+          normalized.append(' ');
+          space = false;
+        }
+        normalized.append(Character.toLowerCase(c));
+      }
+    }
+    return normalized.toString();
+  }
+}
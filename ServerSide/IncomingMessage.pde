@@ -0,0 +1,36 @@
+/**
+ * A message received by the {@link NetworkEngine}, together with the connection it was received from.
+ */
+public class IncomingMessage {
+  private Connection connection;
+  private Message message;
+
+  /**
+   * Constructs a received message.
+   *
+   * @param connection the connection the message was received from.
+   * @param message the decoded message.
+   */
+  public IncomingMessage(Connection connection, Message message) {
+    this.connection = connection;
+    this.message = message;
+  }
+
+  /**
+   * Returns the connection the message was received from.
+   *
+   * @return the connection of the sender.
+   */
+  public Connection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Returns the decoded message.
+   *
+   * @return the message.
+   */
+  public Message getMessage() {
+    return message;
+  }
+}
@@ -0,0 +1,127 @@
+import java.util.Comparator;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps the best users by score in rank order and updates them incrementally whenever a score changes,
+ * instead of sorting all users whenever the best users are needed.
+ * Every change of the ranking increments a version counter, which lets the scoreboard detect changes cheaply.
+ */
+public class Leaderboard {
+  private IntFunction<User[]> topUsersQuery;
+  private User[] entries;
+  private int size;
+  private int version;
+  // higher scores first, equal scores ordered by username
+  private Comparator<User> rankOrder = Comparator.comparing(User::getScore).reversed().thenComparing(User::getUsername);
+
+  /**
+   * Constructs a leaderboard filled with the best users returned by a query.
+   *
+   * @param capacity the number of best users that are kept.
+   * @param topUsersQuery returns the given number of best users in rank order, only needed to fill the leaderboard
+   *     and to find a replacement when a user drops out of it.
+   */
+  public Leaderboard(int capacity, IntFunction<User[]> topUsersQuery) {
+    this.topUsersQuery = topUsersQuery;
+    this.entries = new User[capacity];
+    rebuild();
+  }
+
+  /**
+   * Updates the leaderboard after a new user was added or the score of a user has changed.
+   * A user that moves up is moved within the leaderboard or inserted into it in O(capacity).
+   * Only if a user of a full leaderboard loses points, the leaderboard is refilled by the query,
+   * which must already return the new score.
+   *
+   * @param user the user whose score has changed.
+   * @param previousScore the score of the user before the change.
+   */
+  public void scoreChanged(User user, int previousScore) {
+    int index = indexOf(user);
+    if (index >= 0) {
+      if (user.getScore() < previousScore && size == entries.length) {
+        rebuild();
+        return;
+      }
+      System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+      size--;
+      insert(user);
+      version++;
+    } else if (size < entries.length || rankOrder.compare(user, entries[size - 1]) < 0) {
+      insert(user);
+      version++;
+    }
+  }
+
+  /**
+   * Returns the best users in rank order.
+   *
+   * @param amount the number of users to return, at most the capacity of the leaderboard.
+   * @return the best users, fewer if there are not enough users.
+   */
+  public User[] getTopUsers(int amount) {
+    User[] topUsers = new User[Math.min(amount, size)];
+    System.arraycopy(entries, 0, topUsers, 0, topUsers.length);
+    return topUsers;
+  }
+
+  /**
+   * Returns the number of users kept by the leaderboard.
+   *
+   * @return the capacity of the leaderboard.
+   */
+  public int getCapacity() {
+    return entries.length;
+  }
+
+  /**
+   * Returns the version of the leaderboard, which is incremented on every change.
+   *
+   * @return the current version.
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * Refills the leaderboard with the best users returned by the query.
+   */
+  private void rebuild() {
+    User[] topUsers = topUsersQuery.apply(entries.length);
+    System.arraycopy(topUsers, 0, entries, 0, topUsers.length);
+    size = topUsers.length;
+    version++;
+  }
+
+  /**
+   * Inserts a user at its rank, the last user drops out if the leaderboard is full.
+   *
+   * @param user the user to insert.
+   */
+  private void insert(User user) {
+    int index = size < entries.length ? size : size - 1;
+    while (index > 0 && rankOrder.compare(user, entries[index - 1]) < 0) {
+      entries[index] = entries[index - 1];
+      index--;
+    }
+    entries[index] = user;
+    if (size < entries.length) {
+      size++;
+    }
+  }
+
+  /**
+   * Finds a user in the leaderboard by username, since the same user may have been loaded again from the database.
+   *
+   * @param user the user to find.
+   * @return the index of the user, or -1 if the user is not in the leaderboard.
+   */
+  private int indexOf(User user) {
+    for (int i = 0; i < size; i++) {
+      if (entries[i].getUsername().equals(user.getUsername())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -97,7 +97,8 @@ public class Login extends Component {
 
   /**
    * Handles user registration by the server user. If the input is valid and the user does not already exist,
-   * a new user is added to the system. The user is informed about the registration through status messages.
+   * a new user is added to the system. The user is informed about the registration through status messages
+   * as soon as the password is hashed.
    */
   public void register() {
     String usernameInput = username.getText();
@@ -106,91 +107,109 @@ public class Login extends Component {
     if (!usernameInput.equals("") && !passwordInput.equals("")) {
       long timestamp = System.currentTimeMillis();
       System.out.println("Timestamp in seconds: " + timestamp);
-      try {
-        Application.getInstance().getUserList().addUser(usernameInput, passwordInput, timestamp);
-        Application.getInstance().getServerSide().showMessage("Registration successful. Please login.", false);
-      }
-      //handle what happens when user already exists
-      catch(DuplicateUserException due) {
-        Application.getInstance().getServerSide().showMessage("Username already exists. Please login or register using a different name.", true);
-        due.printStackTrace();
+      Application.getInstance().getUserList().registerUser(usernameInput, passwordInput, timestamp, registered -> {
+        if (registered) {
+          Application.getInstance().getServerSide().showMessage("Registration successful. Please login.", false);
+        }
+        //handle what happens when user already exists
+        else {
+          Application.getInstance().getServerSide().showMessage("Username already exists. Please login or register using a different name.", true);
+        }
       }
+      );
     } else {
       Application.getInstance().getServerSide().showMessage("Please make sure to enter a password and username.", true);
     }
   }
 
   /**
-   * Handles user login by the client user. Validates user credentials and updates UI to reflect the logged-in state.
+   * Handles user login by the server user. Validates user credentials and updates UI to reflect the logged-in state
+   * as soon as the password is hashed.
    */
   private void login() {
     String usernameInput = username.getText();
     String passwordInput = password.getText();
-    User user;
     if (!usernameInput.equals("") && !passwordInput.equals("")) {
-      if ((user = Application.getInstance().getUserList().getValidatedUser(usernameInput, passwordInput)) != null) {
-        Application.getInstance().getUserList().setCurrentUser(user);
-        username.setVisible(false);
-        password.setVisible(false);
-        login.setVisible(false);
-        register.setVisible(false);
-        Application.getInstance().getServerSide().showMessage("Login successful.", false);
-        username.hide();
-        password.hide();
-        login.hide();
-        register.hide();
-        updateUserStats();
-        currentRank.show();
-        currentRankTitle.show();
-        currentScore.show();
-        currentScoreTitle.show();
-        loggedInUser.show();
-        loggedInUserTitle.show();
-        Application.getInstance().getServerSide().showWordPicker();
-      } else {
-        Application.getInstance().getServerSide().showMessage("Login failed. Please check your username and password.", true);
-      }
+      Application.getInstance().getUserList().validateUser(usernameInput, passwordInput, user -> loggedIn(user));
     } else {
       Application.getInstance().getServerSide().showMessage("Please make sure to enter a password and username.", true);
     }
   }
+
+  /**
+   * Updates the UI with the result of the login of the server user.
+   * @param user the validated user, or null if the credentials were invalid.
+   */
+  private void loggedIn(User user) {
+    if (user != null) {
+      Application.getInstance().getUserList().setCurrentUser(user);
+      username.setVisible(false);
+      password.setVisible(false);
+      login.setVisible(false);
+      register.setVisible(false);
+      Application.getInstance().getServerSide().showMessage("Login successful.", false);
+      username.hide();
+      password.hide();
+      login.hide();
+      register.hide();
+      updateUserStats();
+      currentRank.show();
+      currentRankTitle.show();
+      currentScore.show();
+      currentScoreTitle.show();
+      loggedInUser.show();
+      loggedInUserTitle.show();
+      Application.getInstance().getServerSide().showWordPicker();
+    } else {
+      Application.getInstance().getServerSide().showMessage("Login failed. Please check your username and password.", true);
+    }
+  }
   /**
    * Handles client login requests and returns an answer to the requesting client with the login status and user information.
-   * @param input the data received from the client, expected to be formatted as "ValidateUserLogin;;;communicationID;;;username;;;password".
+   * The answer is only sent to the requesting connection, the connection ID of the request is echoed for clients that still compare it.
+   * The answer is sent as soon as the password is hashed.
+   * @param connection the connection of the requesting client.
+   * @param input the data received from the client, expected to be formatted as "ValidateUserLogin;;;connectionID;;;username;;;password".
    */
-  public void clientLogin(String input) {
-    String[] messageParts = input.split(";;;");
+  public void clientLogin(Connection connection, Message input) {
     //maybe check for parse errors
-    int communicationId = int(messageParts[1]);
-    String username = messageParts[2];
-    String password = messageParts[3];
-    User user;
-    if ((user = Application.getInstance().getUserList().getValidatedUser(username, password)) != null) {
-      Application.getInstance().getServerSide().writeToClients("UserLoginResponse;;;"+communicationId+";;;"+user.getUsername()+";;;"+user.getScore()+";;;"+user.getTimeCreated());
-    } else {
-      Application.getInstance().getServerSide().writeToClients("UserLoginResponse;;;"+communicationId+";;;"+"LoginFailed;;;0;;;0");
+    int connectionId = input.getInt(0);
+    String username = input.getString(1);
+    String password = input.getString(2);
+    Application.getInstance().getUserList().validateUser(username, password, user -> {
+      if (user != null) {
+        Application.getInstance().getServerSide().writeToClient(connection, new Message("UserLoginResponse").add(connectionId).add(user.getUsername())
+          .add(user.getScore()).add(user.getTimeCreated()));
+      } else {
+        Application.getInstance().getServerSide().writeToClient(connection, new Message("UserLoginResponse").add(connectionId).add("LoginFailed").add(0).add(0));
+      }
     }
+    );
   }
 
   /**
    * Handles client registration requests and returns an answer to the requesting client with the registration status.
-   * @param input the data received from the client, expected to be formatted as "CreateUser;;;communicationID;;;username;;;password;;;timestamp".
+   * The answer is only sent to the requesting connection, the connection ID of the request is echoed for clients that still compare it.
+   * The answer is sent as soon as the password is hashed.
+   * @param connection the connection of the requesting client.
+   * @param input the data received from the client, expected to be formatted as "CreateUser;;;connectionID;;;username;;;password;;;timestamp".
    */
-  public void clientRegistration(String input) {
-    String[] messageParts = input.split(";;;");
-    int communicationId = int(messageParts[1]);
-    String username = messageParts[2];
-    String password = messageParts[3];
-    long timestamp =  Long.parseLong(messageParts[4]);
-
-    try {
-      Application.getInstance().getUserList().addUser(username, password, timestamp);
-      Application.getInstance().getServerSide().writeToClients("UserCreatedResponse;;;"+communicationId+";;;"+"UserCreatedSuccessfully");
-    }
-    //handle what happens when user already exists
-    catch(DuplicateUserException due) {
-      Application.getInstance().getServerSide().writeToClients("UserCreatedResponse;;;"+communicationId+";;;"+"UserCreationFailed");
+  public void clientRegistration(Connection connection, Message input) {
+    int connectionId = input.getInt(0);
+    String username = input.getString(1);
+    String password = input.getString(2);
+    long timestamp = input.getLong(3);
+
+    Application.getInstance().getUserList().registerUser(username, password, timestamp, registered -> {
+      if (registered) {
+        Application.getInstance().getServerSide().writeToClient(connection, new Message("UserCreatedResponse").add(connectionId).add("UserCreatedSuccessfully"));
+      }
+      //handle what happens when user already exists
+      else {
+        Application.getInstance().getServerSide().writeToClient(connection, new Message("UserCreatedResponse").add(connectionId).add("UserCreationFailed"));
+      }
     }
+    );
   }
 
   /**
@@ -205,16 +224,16 @@ public class Login extends Component {
   }
 
   /**
-   * Answers requests for updated user statistics for specific users.
+   * Answers requests for updated user statistics for specific users. The answer is only sent to the requesting connection.
+   * @param connection the connection of the requesting client.
    * @param input the updated user statistics data, expected to be formatted as "RequestUserStats;;;username"
    */
-  public void updateClientUserStats(String input) {
-    String[] messageParts = input.split(";;;");
-    String username = messageParts[1];
+  public void updateClientUserStats(Connection connection, Message input) {
+    String username = input.getString(0);
     User user = Application.getInstance().getUserList().getUserByUsername(username);
     if (user != null) {
-      Application.getInstance().getServerSide().writeToClients("UserStats;;;"+username+";;;"+user.getScore()+";;;"
-        +Application.getInstance().getUserList().getCurrentUserScorePlacement(user));
+      Application.getInstance().getServerSide().writeToClient(connection, new Message("UserStats").add(username).add(user.getScore())
+        .add(Application.getInstance().getUserList().getCurrentUserScorePlacement(user)));
     }
   }
 }
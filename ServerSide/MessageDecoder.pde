@@ -0,0 +1,343 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incrementally decodes a stream of frames of the legacy text protocol and the binary protocol,
+ * as described in {@link Protocol}, into {@link Message} objects. Both framings may be mixed on the same stream.
+ * Received bytes are appended to a growable buffer that is reused between reads, bytes of a frame that has
+ * not been received completely are kept until the next read. Each connection needs its own decoder.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public class MessageDecoder {
+  private final int MAXFRAMESIZE = 1 << 20;
+  private byte[] buffer;
+  private int start;
+  private int end;
+  private int scanPosition;
+  private int position;
+  private boolean malformed;
+  private ArrayList<Message> messages;
+
+  /**
+   * Constructs a new decoder with an empty buffer.
+   */
+  public MessageDecoder() {
+    buffer = new byte[4096];
+    messages = new ArrayList<>();
+  }
+
+  /**
+   * Appends received bytes to the stream and decodes all frames that are complete.
+   *
+   * @param data the received bytes.
+   * @return the decoded messages in the order they were received.
+   *     The list is reused by the next call and must not be kept.
+   */
+  public ArrayList<Message> feed(byte[] data) {
+    return feed(data, 0, data.length);
+  }
+
+  /**
+   * Appends received bytes to the stream and decodes all frames that are complete.
+   * Unknown or malformed frames are skipped, bytes of an incomplete frame are kept for the next call.
+   *
+   * @param data the buffer holding the received bytes.
+   * @param offset the index of the first received byte.
+   * @param length the number of received bytes.
+   * @return the decoded messages in the order they were received.
+   *     The list is reused by the next call and must not be kept.
+   */
+  public ArrayList<Message> feed(byte[] data, int offset, int length) {
+    messages.clear();
+    append(data, offset, length);
+
+    while (start < end) {
+      int marker = buffer[start] & 0xFF;
+      if (marker == '!') {
+        if (end - start < 4) {
+          break;
+        }
+        if (buffer[start + 1] != 'M' || buffer[start + 2] != 'S' || buffer[start + 3] != 'G') {
+          start++;
+          continue;
+        }
+        // continue the search for the end marker where the previous read stopped
+        int frameEnd = indexOfTextEnd(Math.max(start + 4, scanPosition), end);
+        if (frameEnd < 0) {
+          if (end - start > MAXFRAMESIZE) {
+            start++;
+            scanPosition = start;
+            continue;
+          }
+          scanPosition = Math.max(start + 4, end - 3);
+          break;
+        }
+        Message message = decodeText(buffer, start + 4, frameEnd - start - 4);
+        if (message != null) {
+          messages.add(message);
+        }
+        start = frameEnd + 4;
+      } else if ((marker & 0x80) != 0) {
+        position = start + 1;
+        malformed = false;
+        int payloadLength = readVarint(buffer, end);
+        int payloadStart = position;
+        if (malformed) {
+          // an incomplete length is only malformed if all five bytes have already been received
+          if (end - start > 5) {
+            start++;
+            continue;
+          }
+          break;
+        }
+        if (payloadLength < 0 || payloadLength > MAXFRAMESIZE) {
+          start++;
+          continue;
+        }
+        if (payloadStart + payloadLength > end) {
+          break;
+        }
+        Message message = decodeBinary(buffer, payloadStart, payloadLength, marker & 0x7F);
+        if (message != null) {
+          messages.add(message);
+        }
+        start = payloadStart + payloadLength;
+      } else {
+        start++;
+      }
+    }
+    if (scanPosition < start) {
+      scanPosition = start;
+    }
+    return messages;
+  }
+
+  /**
+   * Discards all buffered bytes, e.g. after the connection was re-established.
+   */
+  public void reset() {
+    start = 0;
+    end = 0;
+    scanPosition = 0;
+  }
+
+  /**
+   * Returns the number of bytes of incomplete frames that are waiting for more data.
+   *
+   * @return the number of buffered bytes.
+   */
+  public int getPendingBytes() {
+    return end - start;
+  }
+
+  /**
+   * Appends bytes to the buffer. Already decoded bytes are discarded first, the buffer only grows
+   * if the pending bytes and the new bytes do not fit.
+   *
+   * @param data the buffer holding the new bytes.
+   * @param offset the index of the first new byte.
+   * @param length the number of new bytes.
+   */
+  private void append(byte[] data, int offset, int length) {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, end - start);
+      end -= start;
+      scanPosition -= start;
+      start = 0;
+    }
+    if (end + length > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, end + length));
+    }
+    System.arraycopy(data, offset, buffer, end, length);
+    end += length;
+  }
+
+  /**
+   * Decodes the payload of a text frame in the format "type;;;field;;;field".
+   * The fields are read directly from the buffer without decoding the whole payload first.
+   *
+   * @param data the buffer holding the payload.
+   * @param offset the start of the payload.
+   * @param length the length of the payload.
+   * @return the decoded message, all fields are strings.
+   */
+  public Message decodeText(byte[] data, int offset, int length) {
+    int payloadEnd = offset + length;
+    Message message = null;
+    int fieldStart = offset;
+    for (int i = offset; i <= payloadEnd; i++) {
+      if (i == payloadEnd || (i + 2 < payloadEnd && data[i] == ';' && data[i + 1] == ';' && data[i + 2] == ';')) {
+        String field = new String(data, fieldStart, i - fieldStart, StandardCharsets.UTF_8);
+        if (message == null) {
+          message = new Message(field);
+        } else {
+          message.add(field);
+        }
+        i += 2;
+        fieldStart = i + 1;
+      }
+    }
+    return message;
+  }
+
+  /**
+   * Decodes the payload of a binary frame.
+   *
+   * @param data the buffer holding the payload.
+   * @param offset the start of the payload.
+   * @param length the length of the payload.
+   * @param version the protocol version carried in the frame marker.
+   * @return the decoded message, or null if the frame is malformed or uses an unknown version or opcode.
+   */
+  public Message decodeBinary(byte[] data, int offset, int length, int version) {
+    if (version < 1 || version > Protocol.VERSION) {
+      return null;
+    }
+    int payloadEnd = offset + length;
+    position = offset;
+    malformed = false;
+    int opcode = readVarint(data, payloadEnd);
+    String type = Protocol.getType(opcode);
+    if (malformed || type == null) {
+      return null;
+    }
+    Message message = new Message(type, opcode);
+    byte[] fieldTypes = Protocol.getFieldTypes(opcode);
+    for (int i = 0; i < fieldTypes.length; i++) {
+      if (fieldTypes[i] == Protocol.REPEAT) {
+        int repetitions = readVarint(data, payloadEnd);
+        // every repeated field takes at least one byte, so a larger count cannot fit into the payload
+        if (malformed || repetitions < 0 || (long) repetitions * (fieldTypes.length - i - 1) > payloadEnd - position) {
+          return null;
+        }
+        for (int r = 0; r < repetitions; r++) {
+          for (int j = i + 1; j < fieldTypes.length; j++) {
+            if (!readField(fieldTypes[j], data, payloadEnd, message)) {
+              return null;
+            }
+          }
+        }
+        break;
+      }
+      if (!readField(fieldTypes[i], data, payloadEnd, message)) {
+        return null;
+      }
+    }
+    return message;
+  }
+
+  /**
+   * Reads a single typed field and appends it to the message.
+   *
+   * @param fieldType the protocol type of the field.
+   * @param data the buffer to read from.
+   * @param payloadEnd the end of the payload.
+   * @param message the message to append the field to.
+   * @return true if the field was read, false if the payload is malformed.
+   */
+  private boolean readField(byte fieldType, byte[] data, int payloadEnd, Message message) {
+    switch (fieldType) {
+    case Protocol.VARINT:
+      int zigzag = readVarint(data, payloadEnd);
+      message.add((zigzag >>> 1) ^ -(zigzag & 1));
+      break;
+    case Protocol.INT:
+      if (position + 4 > payloadEnd) {
+        return false;
+      }
+      message.add(((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+        | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF));
+      position += 4;
+      break;
+    case Protocol.BYTE:
+      if (position >= payloadEnd) {
+        return false;
+      }
+      message.add(data[position++] & 0xFF);
+      break;
+    case Protocol.LONG:
+      long zigzagLong = readVarlong(data, payloadEnd);
+      message.add((zigzagLong >>> 1) ^ -(zigzagLong & 1));
+      break;
+    case Protocol.STRING:
+      int stringLength = readVarint(data, payloadEnd);
+      if (malformed || stringLength < 0 || stringLength > payloadEnd - position) {
+        return false;
+      }
+      message.add(new String(data, position, stringLength, StandardCharsets.UTF_8));
+      position += stringLength;
+      break;
+    default:
+      return false;
+    }
+    return !malformed && position <= payloadEnd;
+  }
+
+  /**
+   * Finds the end marker "MSG?" of a text frame in the buffer.
+   *
+   * @param from the first index to search from.
+   * @param to the index to stop searching at.
+   * @return the index of the end marker, or -1 if it was not found.
+   */
+  private int indexOfTextEnd(int from, int to) {
+    for (int i = from; i + 3 < to; i++) {
+      if (buffer[i] == 'M' && buffer[i + 1] == 'S' && buffer[i + 2] == 'G' && buffer[i + 3] == '?') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads an unsigned varint at the current position.
+   *
+   * @param data the buffer to read from.
+   * @param limit the index the varint must end before.
+   * @return the value, or -1 if the varint is incomplete or longer than 32 bits, in which case the frame is flagged as malformed.
+   */
+  private int readVarint(byte[] data, int limit) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (position >= limit) {
+        malformed = true;
+        return -1;
+      }
+      int b = data[position++];
+      // the fifth byte only holds the 4 highest bits of the value
+      if (shift == 28 && (b & 0xF0) != 0) {
+        break;
+      }
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    malformed = true;
+    return -1;
+  }
+
+  /**
+   * Reads an unsigned varlong at the current position.
+   *
+   * @param data the buffer to read from.
+   * @param limit the index the varlong must end before.
+   * @return the value, or -1 if the varlong is incomplete, in which case the frame is flagged as malformed.
+   */
+  private long readVarlong(byte[] data, int limit) {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      if (position >= limit) {
+        malformed = true;
+        return -1;
+      }
+      int b = data[position++];
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    malformed = true;
+    return -1;
+  }
+}
@@ -0,0 +1,209 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes {@link Message} objects into frames of the legacy text protocol or the binary protocol,
+ * as described in {@link Protocol}. The internal buffer is reused between calls, so an encoder
+ * must not be shared between threads.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public class MessageEncoder {
+  private byte[] buffer;
+  private int length;
+
+  /**
+   * Constructs a new encoder with a small initial buffer.
+   */
+  public MessageEncoder() {
+    buffer = new byte[256];
+  }
+
+  /**
+   * Encodes a message for a peer that speaks the given protocol version.
+   * Messages that are not part of the binary protocol are always sent as text frames.
+   *
+   * @param message the message to encode.
+   * @param protocolVersion the protocol version negotiated with the peer.
+   * @return the encoded frame.
+   */
+  public byte[] encode(Message message, int protocolVersion) {
+    if (protocolVersion >= 1 && message.getOpcode() >= 0) {
+      return encodeBinary(message);
+    }
+    return encodeText(message);
+  }
+
+  /**
+   * Encodes a message as legacy text frame "!MSG...MSG?".
+   *
+   * @param message the message to encode.
+   * @return the encoded frame.
+   */
+  public byte[] encodeText(Message message) {
+    return ("!MSG" + message + "MSG?").getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Encodes a message as binary frame: marker byte, varint payload length, varint opcode and the typed fields.
+   *
+   * @param message the message to encode.
+   * @return the encoded frame.
+   * @throws IllegalArgumentException if the message type or its fields do not match the protocol.
+   */
+  public byte[] encodeBinary(Message message) {
+    int opcode = message.getOpcode();
+    if (opcode < 0) {
+      throw new IllegalArgumentException("Message type '" + message.getType() + "' is not part of the binary protocol.");
+    }
+    // the payload is written first, the header is prepended once its length is known
+    length = 0;
+    writeVarint(opcode);
+    byte[] fieldTypes = Protocol.getFieldTypes(opcode);
+    int repeatStart = -1;
+    for (int i = 0; i < fieldTypes.length; i++) {
+      if (fieldTypes[i] == Protocol.REPEAT) {
+        repeatStart = i + 1;
+        break;
+      }
+    }
+    int fixedFields = repeatStart < 0 ? fieldTypes.length : repeatStart - 1;
+    if (message.getFieldCount() < fixedFields) {
+      throw new IllegalArgumentException("Message '" + message.getType() + "' is missing fields.");
+    }
+    for (int i = 0; i < fixedFields; i++) {
+      writeField(fieldTypes[i], message, i);
+    }
+    if (repeatStart >= 0) {
+      int groupSize = fieldTypes.length - repeatStart;
+      int repetitions = (message.getFieldCount() - fixedFields) / groupSize;
+      writeVarint(repetitions);
+      for (int i = 0; i < repetitions * groupSize; i++) {
+        writeField(fieldTypes[repeatStart + i % groupSize], message, fixedFields + i);
+      }
+    }
+
+    int payloadLength = length;
+    int headerLength = 1 + varintSize(payloadLength);
+    byte[] frame = new byte[headerLength + payloadLength];
+    frame[0] = (byte) Protocol.FRAME_MARKER;
+    int position = 1;
+    int value = payloadLength;
+    while ((value & ~0x7F) != 0) {
+      frame[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    frame[position] = (byte) value;
+    System.arraycopy(buffer, 0, frame, headerLength, payloadLength);
+    return frame;
+  }
+
+  /**
+   * Writes a single field of a message according to its protocol type.
+   *
+   * @param fieldType the protocol type of the field.
+   * @param message the message holding the field.
+   * @param index the index of the field in the message.
+   */
+  private void writeField(byte fieldType, Message message, int index) {
+    switch (fieldType) {
+    case Protocol.VARINT:
+      writeVarint(zigzag(message.getInt(index)));
+      break;
+    case Protocol.INT:
+      int value = message.getInt(index);
+      writeByte(value >>> 24);
+      writeByte(value >>> 16);
+      writeByte(value >>> 8);
+      writeByte(value);
+      break;
+    case Protocol.BYTE:
+      writeByte(message.getInt(index));
+      break;
+    case Protocol.LONG:
+      long longValue = message.getLong(index);
+      writeVarlong((longValue << 1) ^ (longValue >> 63));
+      break;
+    case Protocol.STRING:
+      byte[] bytes = message.getString(index).getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, length, bytes.length);
+      length += bytes.length;
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown field type " + fieldType);
+    }
+  }
+
+  /**
+   * Maps signed ints to unsigned ints so that small negative numbers stay small as varint.
+   *
+   * @param value the signed value.
+   * @return the zigzag encoded value.
+   */
+  private int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * Returns the number of bytes needed to write an unsigned varint.
+   *
+   * @param value the value to measure.
+   * @return the encoded size in bytes.
+   */
+  private int varintSize(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Writes an unsigned varint into the buffer.
+   *
+   * @param value the value to write.
+   */
+  private void writeVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    writeByte(value);
+  }
+
+  /**
+   * Writes an unsigned varlong into the buffer.
+   *
+   * @param value the value to write.
+   */
+  private void writeVarlong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    writeByte((int) value);
+  }
+
+  /**
+   * Writes the lowest eight bits of a value into the buffer.
+   *
+   * @param value the value to write.
+   */
+  private void writeByte(int value) {
+    ensureCapacity(1);
+    buffer[length++] = (byte) value;
+  }
+
+  /**
+   * Grows the buffer so that the given amount of additional bytes fits.
+   *
+   * @param additional the number of bytes that will be written.
+   */
+  private void ensureCapacity(int additional) {
+    if (length + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+    }
+  }
+}
@@ -0,0 +1,12 @@
+/**
+ * Handles messages of one message type received from a client, see {@link MessageDispatcher}.
+ */
+public interface MessageHandler {
+  /**
+   * Handles a received message.
+   *
+   * @param connection the connection the message was received from.
+   * @param message the received message.
+   */
+  void handle(Connection connection, Message message);
+}
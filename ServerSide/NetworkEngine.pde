@@ -0,0 +1,268 @@
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking network engine of the server, based on a {@link Selector} running on its own thread.
+ * The network thread accepts clients, reads and decodes their frames and writes queued frames, independently of the frame rate.
+ * Decoded messages are handed to the game thread through a lock-free queue, see {@link #poll()}.
+ * Besides the protocol messages, the engine queues the messages "Connected" and "Disconnected" whenever a client connects or disconnects.
+ */
+public class NetworkEngine implements Runnable {
+  private int port;
+  private Selector selector;
+  private ServerSocketChannel serverChannel;
+  private Thread thread;
+  private volatile boolean running;
+  private ByteBuffer readBuffer;
+  private ConcurrentLinkedQueue<IncomingMessage> incoming;
+  private AtomicInteger backlog;
+  private ConcurrentLinkedQueue<Connection> pendingWrites;
+  private ConcurrentHashMap<Integer, Connection> connections;
+  private int nextConnectionId;
+
+  /**
+   * Constructs a network engine for the given port. The engine does not accept clients before {@link #start()} is called.
+   *
+   * @param port the TCP port to listen on.
+   */
+  public NetworkEngine(int port) {
+    this.port = port;
+    this.readBuffer = ByteBuffer.allocate(16384);
+    this.incoming = new ConcurrentLinkedQueue<>();
+    this.backlog = new AtomicInteger();
+    this.pendingWrites = new ConcurrentLinkedQueue<>();
+    this.connections = new ConcurrentHashMap<>();
+    this.nextConnectionId = 1;
+  }
+
+  /**
+   * Opens the server socket and starts the network thread.
+   *
+   * @throws IOException if the server socket could not be opened.
+   */
+  public void start() throws IOException {
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.configureBlocking(false);
+    serverChannel.bind(new InetSocketAddress(port));
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    running = true;
+    thread = new Thread(this, "NetworkEngine");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the network thread and closes all connections.
+   */
+  public void stop() {
+    running = false;
+    if (selector != null) {
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Event loop of the network thread. Registers pending writes and handles all ready channels until the engine is stopped.
+   */
+  @Override
+    public void run() {
+    while (running) {
+      try {
+        selector.select();
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+          flush(connection);
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+          } else {
+            if (key.isReadable()) {
+              read(key);
+            }
+            if (key.isValid() && key.isWritable()) {
+              flush((Connection) key.attachment());
+            }
+          }
+        }
+      }
+      catch (IOException ioe) {
+        ioe.printStackTrace();
+      }
+    }
+    for (Connection connection : connections.values()) {
+      close(connection);
+    }
+    try {
+      serverChannel.close();
+      selector.close();
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+  }
+
+  /**
+   * Accepts a new client and registers it for reading.
+   *
+   * @throws IOException if the client could not be accepted.
+   */
+  private void accept() throws IOException {
+    SocketChannel channel = serverChannel.accept();
+    if (channel == null) {
+      return;
+    }
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    Connection connection = new Connection(nextConnectionId++, channel, this);
+    connection.setSelectionKey(channel.register(selector, SelectionKey.OP_READ, connection));
+    connections.put(connection.getId(), connection);
+    enqueue(new IncomingMessage(connection, new Message("Connected")));
+  }
+
+  /**
+   * Reads all available bytes of a client and queues the decoded messages for the game thread.
+   *
+   * @param key the selection key of the client.
+   */
+  private void read(SelectionKey key) {
+    Connection connection = (Connection) key.attachment();
+    try {
+      int length;
+      while ((length = connection.getChannel().read(readBuffer)) > 0) {
+        for (Message message : connection.getDecoder().feed(readBuffer.array(), 0, length)) {
+          enqueue(new IncomingMessage(connection, message));
+        }
+        readBuffer.clear();
+      }
+      readBuffer.clear();
+      if (length < 0) {
+        close(connection);
+      }
+    }
+    catch (IOException ioe) {
+      readBuffer.clear();
+      close(connection);
+    }
+    catch (RuntimeException re) {
+      // a frame that breaks the decoder must only drop its own client, not stop the network thread
+      re.printStackTrace();
+      readBuffer.clear();
+      close(connection);
+    }
+  }
+
+  /**
+   * Writes the queued frames of a connection. If the socket cannot take all of them, the connection
+   * is registered for write readiness and the rest is written once the socket is writable again.
+   * A connection whose queue overflowed is closed instead.
+   *
+   * @param connection the connection to write.
+   */
+  private void flush(Connection connection) {
+    SelectionKey key = connection.getSelectionKey();
+    if (key == null || !key.isValid()) {
+      return;
+    }
+    try {
+      boolean flushed = connection.flush();
+      // checked after the flush, which allows the next write to schedule another flush
+      if (connection.isOverflowed()) {
+        close(connection);
+      } else if (flushed) {
+        key.interestOps(SelectionKey.OP_READ);
+      } else {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+    }
+    catch (IOException ioe) {
+      close(connection);
+    }
+  }
+
+  /**
+   * Closes a connection and informs the game thread about it.
+   *
+   * @param connection the connection to close.
+   */
+  private void close(Connection connection) {
+    if (connections.remove(connection.getId()) == null) {
+      return;
+    }
+    try {
+      connection.getSelectionKey().cancel();
+      connection.getChannel().close();
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+    enqueue(new IncomingMessage(connection, new Message("Disconnected")));
+  }
+
+  /**
+   * Hands a received message to the game thread.
+   *
+   * @param incomingMessage the received message.
+   */
+  private void enqueue(IncomingMessage incomingMessage) {
+    incoming.offer(incomingMessage);
+    backlog.incrementAndGet();
+  }
+
+  /**
+   * Schedules a connection to be written by the network thread. Called by {@link Connection#write(byte[])}.
+   *
+   * @param connection the connection that has queued frames.
+   */
+  public void scheduleWrite(Connection connection) {
+    pendingWrites.offer(connection);
+    selector.wakeup();
+  }
+
+  /**
+   * Retrieves the next message received from any client. Called by the game thread.
+   *
+   * @return the next received message, or null if no message is waiting.
+   */
+  public IncomingMessage poll() {
+    IncomingMessage incomingMessage = incoming.poll();
+    if (incomingMessage != null) {
+      backlog.decrementAndGet();
+    }
+    return incomingMessage;
+  }
+
+  /**
+   * Returns the number of received messages that have not been retrieved by the game thread yet.
+   *
+   * @return the number of waiting messages.
+   */
+  public int getBacklog() {
+    return backlog.get();
+  }
+
+  /**
+   * Returns all currently open connections.
+   *
+   * @return a live view of the open connections.
+   */
+  public Collection<Connection> getConnections() {
+    return connections.values();
+  }
+}
@@ -0,0 +1,167 @@
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hashes salted passwords on a bounded pool of worker threads, so that a burst of logins does not stall the draw thread.
+ * Each worker reuses its own SHA3-256 digest. The results are handed back to the game thread,
+ * which runs the callbacks of the finished hashes in {@link #update()}.
+ * Requests that do not fit into the queue are rejected and answered with null.
+ */
+public class PasswordHasher {
+  private ThreadPoolExecutor executor;
+  private ConcurrentLinkedQueue<Runnable> completions;
+  private ThreadLocal<MessageDigest> digests;
+  private AtomicInteger threadCount;
+  private AtomicLong hashCount;
+  private AtomicLong totalHashNanos;
+  private AtomicLong totalWaitNanos;
+  private AtomicLong rejectedCount;
+
+  /**
+   * Constructs a hasher and starts its worker threads.
+   *
+   * @param threads the number of worker threads.
+   * @param queueCapacity the maximum number of requests waiting for a worker.
+   */
+  public PasswordHasher(int threads, int queueCapacity) {
+    completions = new ConcurrentLinkedQueue<>();
+    threadCount = new AtomicInteger();
+    hashCount = new AtomicLong();
+    totalHashNanos = new AtomicLong();
+    totalWaitNanos = new AtomicLong();
+    rejectedCount = new AtomicLong();
+    digests = ThreadLocal.withInitial(() -> {
+      try {
+        return MessageDigest.getInstance("SHA3-256");
+      }
+      catch (NoSuchAlgorithmException nsae) {
+        throw new IllegalStateException(nsae);
+      }
+    }
+    );
+    executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity), runnable -> {
+      Thread thread = new Thread(runnable, "PasswordHasher-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+    );
+  }
+
+  /**
+   * Hashes a password salted with a timestamp on a worker thread. The callback is run on the game thread
+   * during the next call of {@link #update()} after the hash is finished.
+   *
+   * @param password the cleartext password.
+   * @param salt the timestamp the password is salted with.
+   * @param callback receives the hexadecimal hash, or null if the request was rejected or hashing failed.
+   */
+  public void hash(String password, long salt, Consumer<String> callback) {
+    long submitted = System.nanoTime();
+    try {
+      executor.execute(() -> {
+        long started = System.nanoTime();
+        String hashedPassword = null;
+        try {
+          MessageDigest digest = digests.get();
+          hashedPassword = bytesToHex(digest.digest((password + salt).getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (IllegalStateException ise) {
+          ise.printStackTrace();
+        }
+        long finished = System.nanoTime();
+        totalWaitNanos.addAndGet(started - submitted);
+        totalHashNanos.addAndGet(finished - started);
+        hashCount.incrementAndGet();
+        String result = hashedPassword;
+        completions.add(() -> callback.accept(result));
+      }
+      );
+    }
+    catch (RejectedExecutionException ree) {
+      rejectedCount.incrementAndGet();
+      completions.add(() -> callback.accept(null));
+    }
+  }
+
+  /**
+   * Runs the callbacks of all finished hashes. Must be called by the game thread, e.g. once per frame.
+   */
+  public void update() {
+    Runnable completion;
+    while ((completion = completions.poll()) != null) {
+      completion.run();
+    }
+  }
+
+  /**
+   * Returns the number of requests waiting for a worker thread.
+   *
+   * @return the queue depth.
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Returns the average time a worker needed to hash a password.
+   *
+   * @return the average hash latency in ns, or 0 if nothing was hashed yet.
+   */
+  public long getAverageHashNanos() {
+    long count = hashCount.get();
+    return count > 0 ? totalHashNanos.get() / count : 0;
+  }
+
+  /**
+   * Returns the average time a request waited in the queue before a worker started hashing it.
+   *
+   * @return the average wait time in ns, or 0 if nothing was hashed yet.
+   */
+  public long getAverageWaitNanos() {
+    long count = hashCount.get();
+    return count > 0 ? totalWaitNanos.get() / count : 0;
+  }
+
+  /**
+   * Returns the number of requests that were rejected because the queue was full.
+   *
+   * @return the number of rejected requests.
+   */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /**
+   * Stops the worker threads, requests that are still queued are discarded.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Converts a byte array to a hexadecimal string.
+   * Source:  https://www.baeldung.com/sha-256-hashing-java
+   * @param hash the byte array to convert.
+   * @return the corresponding hexadecimal string.
+   */
+  private String bytesToHex(byte[] hash) {
+    StringBuilder hexString = new StringBuilder(2 * hash.length);
+    for (int i = 0; i < hash.length; i++) {
+      String hex = Integer.toHexString(0xff & hash[i]);
+      if (hex.length() == 1) {
+        hexString.append('0');
+      }
+      hexString.append(hex);
+    }
+    return hexString.toString();
+  }
+}
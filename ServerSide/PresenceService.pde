@@ -0,0 +1,104 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the connected users based on their heartbeats and informs the clients about changes.
+ * A client receives the full list of users as "PresenceSnapshot" when it connects, afterwards only the users that
+ * join or leave are sent as "PresenceJoin" and "PresenceLeave". Every change increments a sequence number, which lets
+ * the clients detect a missed change and request a new snapshot.
+ * Clients that only understand the text protocol receive the full "ConnectedUsers" list whenever it has changed.
+ */
+public class PresenceService {
+  private LinkedHashMap<String, Long> heartbeats;
+  private ArrayList<String> users;
+  private long heartbeatTimeout;
+  private int sequence;
+  private boolean changed;
+
+  /**
+   * Constructs a presence service without any connected users.
+   *
+   * @param heartbeatTimeout the time in ms after the last heartbeat after which a user is considered disconnected.
+   */
+  public PresenceService(long heartbeatTimeout) {
+    this.heartbeatTimeout = heartbeatTimeout;
+    // ordered by the last heartbeat, so the users that expire first are always at the head
+    heartbeats = new LinkedHashMap<>();
+    users = new ArrayList<>();
+  }
+
+  /**
+   * Records a heartbeat of a user. Users that were not connected yet join.
+   *
+   * @param username the name of the user that sent the heartbeat.
+   */
+  public void heartbeat(String username) {
+    if (heartbeats.remove(username) == null) {
+      users.add(username);
+      sequence++;
+      changed = true;
+      Application.getInstance().getServerSide().writeToClients(new Message("PresenceJoin").add(sequence).add(username), 1, Protocol.VERSION);
+    }
+    heartbeats.put(username, System.currentTimeMillis());
+  }
+
+  /**
+   * Removes the users whose last heartbeat is older than the timeout and sends the full list to the legacy clients
+   * if it has changed since the last update. Should be called once per frame.
+   *
+   * @return true if the connected users have changed since the last update.
+   */
+  public boolean update() {
+    long now = System.currentTimeMillis();
+    Iterator<Map.Entry<String, Long>> iterator = heartbeats.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> entry = iterator.next();
+      if (now - entry.getValue() < heartbeatTimeout) {
+        break;
+      }
+      iterator.remove();
+      users.remove(entry.getKey());
+      sequence++;
+      changed = true;
+      Application.getInstance().getServerSide().writeToClients(new Message("PresenceLeave").add(sequence).add(entry.getKey()), 1, Protocol.VERSION);
+    }
+
+    if (!changed) {
+      return false;
+    }
+    changed = false;
+    Message userListForClients = new Message("ConnectedUsers");
+    for (String username : users) {
+      userListForClients.add(username);
+    }
+    Application.getInstance().getServerSide().writeToClients(userListForClients, Protocol.TEXT, Protocol.TEXT);
+    return true;
+  }
+
+  /**
+   * Sends the full list of connected users to a single client, e.g. because it has just connected.
+   * Legacy clients receive the "ConnectedUsers" list instead.
+   *
+   * @param connection the connection of the client.
+   */
+  public void sendSnapshot(Connection connection) {
+    Message snapshot = new Message(connection.getProtocolVersion() >= 1 ? "PresenceSnapshot" : "ConnectedUsers");
+    if (connection.getProtocolVersion() >= 1) {
+      snapshot.add(sequence);
+    }
+    for (String username : users) {
+      snapshot.add(username);
+    }
+    Application.getInstance().getServerSide().writeToClient(connection, snapshot);
+  }
+
+  /**
+   * Returns the connected users in the order they joined.
+   *
+   * @return the names of the connected users.
+   */
+  public ArrayList<String> getUsers() {
+    return users;
+  }
+}
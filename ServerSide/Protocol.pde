@@ -0,0 +1,132 @@
+/**
+ * Static description of the wire protocol shared by server and clients.
+ * Two framings are supported on the same connection:
+ * the legacy text framing "!MSG" + "type;;;field;;;field" + "MSG?" (protocol version 0), and a versioned,
+ * length-prefixed binary framing (marker byte, varint payload length, varint opcode, typed fields).
+ * Which framing is written to a peer is negotiated with a "Hello" handshake, both framings are always accepted when reading.
+ * This class must be kept identical in the ServerSide and ClientSide sketches.
+ */
+public static class Protocol {
+  /** Protocol version of the legacy text framing, used until a handshake has succeeded. */
+  public static final int TEXT = 0;
+  /** Highest binary protocol version understood by this build. */
+  public static final int VERSION = 1;
+  /** First byte of every binary frame. The high bit can never start a text frame, the low bits carry the version. */
+  public static final int FRAME_MARKER = 0x80 | VERSION;
+
+  /** Zigzag encoded variable length int. */
+  public static final byte VARINT = 1;
+  /** Fixed four byte big endian int, used for colors. */
+  public static final byte INT = 2;
+  /** Single unsigned byte. */
+  public static final byte BYTE = 3;
+  /** Zigzag encoded variable length long. */
+  public static final byte LONG = 4;
+  /** Varint length followed by UTF-8 bytes. */
+  public static final byte STRING = 5;
+  /** Marks that the remaining field types repeat. A varint repetition count is written in its place. */
+  public static final byte REPEAT = 6;
+
+  private static final ArrayList<String> types = new ArrayList<>();
+  private static final ArrayList<byte[]> fields = new ArrayList<>();
+  private static final HashMap<String, Integer> opcodes = new HashMap<>();
+
+  /**
+   * Registers all known message types. The opcode of a type is its registration index,
+   * so new types must only ever be appended to keep older peers compatible.
+   */
+  static {
+    register("Hello", VARINT); // always sent as text frame, the answer of the server also carries the connection ID
+    register("Chat", STRING, STRING);
+    register("Draw", VARINT, VARINT, VARINT, VARINT, INT, BYTE);
+    register("ValidateUserLogin", VARINT, STRING, STRING);
+    register("CreateUser", VARINT, STRING, STRING, LONG);
+    register("UserHeartbeat", STRING);
+    register("RequestUserStats", STRING);
+    register("UserLoginResponse", VARINT, STRING, VARINT, LONG);
+    register("UserCreatedResponse", VARINT, STRING);
+    register("Winner", STRING);
+    register("ConnectedUsers", REPEAT, STRING);
+    register("Gamestart");
+    register("Topscores", REPEAT, STRING, VARINT);
+    register("UserStats", STRING, VARINT, VARINT);
+    register("StrokeBegin", VARINT, INT, BYTE, VARINT, VARINT);
+    register("StrokePoints", VARINT, REPEAT, VARINT, VARINT);
+    register("StrokeEnd", VARINT);
+    register("PresenceSnapshot", VARINT, REPEAT, STRING);
+    register("PresenceJoin", VARINT, STRING);
+    register("PresenceLeave", VARINT, STRING);
+    register("RequestPresenceSnapshot");
+    register("SubscribeTopscores", VARINT); // 0 for the total scores, the time windows from 1 on
+    register("WindowTopscores", VARINT, REPEAT, STRING, VARINT);
+    register("CloseGuess", STRING); // the close guess, only sent to the player who made it
+  }
+
+  /**
+   * Private constructor, this class only provides static members.
+   */
+  private Protocol() {
+  }
+
+  /**
+   * Adds a message type with its field layout to the protocol.
+   *
+   * @param type the name of the message type.
+   * @param fieldTypes the types of the fields of the message, in order.
+   */
+  private static void register(String type, byte... fieldTypes) {
+    opcodes.put(type, types.size());
+    types.add(type);
+    fields.add(fieldTypes);
+  }
+
+  /**
+   * Returns the opcode of a message type.
+   *
+   * @param type the name of the message type.
+   * @return the opcode, or -1 if the type is not part of the binary protocol.
+   */
+  public static int getOpcode(String type) {
+    Integer opcode = opcodes.get(type);
+    return opcode == null ? -1 : opcode;
+  }
+
+  /**
+   * Returns the name of the message type with the given opcode.
+   *
+   * @param opcode the opcode of the message type.
+   * @return the name of the type, or null if the opcode is unknown.
+   */
+  public static String getType(int opcode) {
+    return opcode >= 0 && opcode < types.size() ? types.get(opcode) : null;
+  }
+
+  /**
+   * Returns the field layout of the message type with the given opcode.
+   *
+   * @param opcode the opcode of the message type.
+   * @return the field types in order.
+   */
+  public static byte[] getFieldTypes(int opcode) {
+    return fields.get(opcode);
+  }
+
+  /**
+   * Returns the number of registered message types.
+   *
+   * @return the number of opcodes in use.
+   */
+  public static int getTypeCount() {
+    return types.size();
+  }
+
+  /**
+   * Returns the protocol version both peers understand.
+   *
+   * @param requestedVersion the highest version offered by the remote peer.
+   * @return the negotiated version.
+   */
+  public static int negotiate(int requestedVersion) {
+    return Math.max(TEXT, Math.min(requestedVersion, VERSION));
+  }
+}
@@ -0,0 +1,68 @@
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Checks the ranks counted by the database while the rank index is still being filled, as they are shortly after the server started.
+ * A score that has been changed but not written to the database yet must be counted with its new value.
+ */
+public class RankFallbackTest extends SketchTest {
+  private final String[] USERNAMES = {"anna", "ben", "carla"};
+  private final int[] SCORES = {100, 50, 10};
+
+  /**
+   * Awards points to the last user, so that the user overtakes the others, and reads the ranks of all users without updating the user list,
+   * so the rank index is not complete and the scores are not written yet.
+   */
+  @Override
+    public void run() {
+    try {
+      File directory = Files.createTempDirectory("ranks").toFile();
+      Database database = new Database(new File(directory, "users.sqlite").getAbsolutePath());
+      UserList userList = null;
+      try {
+        createUsers(database);
+        userList = new UserList(database, new File(directory, "journal"));
+        User anna = userList.getUserByUsername("anna");
+        User ben = userList.getUserByUsername("ben");
+        User carla = userList.getUserByUsername("carla");
+        check(userList.getCurrentUserScorePlacement(carla) == 3, "the ranks are counted from the database before a score changes");
+
+        userList.awardPointsToUser(carla, 200, ScoreJournal.GUESSED, System.currentTimeMillis());
+        check(userList.getCurrentUserScorePlacement(carla) == 1, "the user with the changed score is ranked by the new score");
+        check(userList.getCurrentUserScorePlacement(anna) == 2, "a user overtaken by a score that is not written yet moves down");
+        check(userList.getCurrentUserScorePlacement(ben) == 3, "the users behind the overtaken user move down as well");
+      }
+      finally {
+        if (userList != null) {
+          userList.close();
+        }
+        database.close();
+      }
+      deleteDirectory(new File(directory, "journal/archive"));
+      deleteDirectory(new File(directory, "journal"));
+      deleteDirectory(directory);
+    }
+    catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Creates the users table with the test users.
+   *
+   * @param database the test database.
+   * @throws SQLException if the users cannot be inserted.
+   */
+  private void createUsers(Database database) throws SQLException {
+    database.execute("CREATE TABLE users (id INTEGER PRIMARY KEY, username TEXT NOT NULL UNIQUE, password TEXT NOT NULL, score INTEGER, userCreatedTimestamp INTEGER NOT NULL)");
+    for (int i = 0; i < USERNAMES.length; i++) {
+      PreparedStatement statement = database.prepare("INSERT INTO users (username, password, score, userCreatedTimestamp) VALUES (?, ?, ?, ?)");
+      statement.setString(1, USERNAMES[i]);
+      statement.setString(2, "");
+      statement.setInt(3, SCORES[i]);
+      statement.setLong(4, 0);
+      statement.executeUpdate();
+    }
+  }
+}
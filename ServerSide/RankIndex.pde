@@ -0,0 +1,258 @@
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Order statistic index over the scores of all users, ordered by score from highest to lowest and by username for equal scores.
+ * The index is a treap whose nodes know the size of their subtree, so the rank of a user can be found in O(log n)
+ * instead of sorting all users. Only usernames and scores are indexed, the users themselves stay in the database.
+ * Score changes are applied by removing the entry with the previous score and inserting it again with the new one.
+ */
+public class RankIndex {
+  private Node root;
+  private HashMap<String, Integer> scores = new HashMap<>();
+  private Random random = new Random();
+
+  /**
+   * A node of the treap, holding a username with its score.
+   */
+  private class Node {
+    private String username;
+    private int score;
+    private int priority;
+    private int size;
+    private Node left;
+    private Node right;
+
+    /**
+     * Constructs a leaf node.
+     *
+     * @param username the indexed username.
+     * @param score the score of the user.
+     */
+    private Node(String username, int score) {
+      this.username = username;
+      this.score = score;
+      this.priority = random.nextInt();
+      this.size = 1;
+    }
+  }
+
+  /**
+   * Adds a user to the index or moves it to the position of its new score.
+   *
+   * @param username the username of the user.
+   * @param score the current score of the user.
+   */
+  public void put(String username, int score) {
+    Integer previousScore = scores.put(username, score);
+    if (previousScore != null) {
+      if (previousScore == score) {
+        return;
+      }
+      root = remove(root, previousScore, username);
+    }
+    Node node = new Node(username, score);
+    Node[] parts = split(root, score, username);
+    root = merge(merge(parts[0], node), parts[1]);
+  }
+
+  /**
+   * Removes a user from the index.
+   *
+   * @param username the username of the user.
+   */
+  public void remove(String username) {
+    Integer score = scores.remove(username);
+    if (score != null) {
+      root = remove(root, score, username);
+    }
+  }
+
+  /**
+   * Returns the indexed score of a user.
+   *
+   * @param username the username of the user.
+   * @return the score, or 0 if the user is not indexed.
+   */
+  public int getScore(String username) {
+    Integer score = scores.get(username);
+    return score == null ? 0 : score;
+  }
+
+  /**
+   * Returns the usernames of the best users in rank order by walking the treap in order,
+   * which costs O(amount + log n) instead of sorting all users.
+   *
+   * @param amount the number of users to return.
+   * @return the usernames of the best users, fewer if there are not enough users.
+   */
+  public String[] getTopUsernames(int amount) {
+    String[] usernames = new String[Math.min(amount, size())];
+    ArrayDeque<Node> path = new ArrayDeque<>();
+    Node node = root;
+    int count = 0;
+    while (count < usernames.length) {
+      while (node != null) {
+        path.push(node);
+        node = node.left;
+      }
+      node = path.pop();
+      usernames[count++] = node.username;
+      node = node.right;
+    }
+    return usernames;
+  }
+
+  /**
+   * Checks whether a user is indexed.
+   *
+   * @param username the username of the user.
+   * @return true if the user is indexed.
+   */
+  public boolean contains(String username) {
+    return scores.containsKey(username);
+  }
+
+  /**
+   * Returns the rank of a user, the user with the highest score has rank 1.
+   *
+   * @param username the username of the user.
+   * @return the rank of the user, or -1 if the user is not indexed.
+   */
+  public int getRank(String username) {
+    Integer score = scores.get(username);
+    if (score == null) {
+      return -1;
+    }
+    int rank = 0;
+    Node node = root;
+    while (node != null) {
+      int comparison = compare(score, username, node);
+      if (comparison < 0) {
+        node = node.left;
+      } else {
+        rank += size(node.left) + 1;
+        if (comparison == 0) {
+          return rank;
+        }
+        node = node.right;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the number of indexed users.
+   *
+   * @return the number of users.
+   */
+  public int size() {
+    return size(root);
+  }
+
+  /**
+   * Splits a subtree into the nodes ranked before a key and the remaining nodes.
+   *
+   * @param node the root of the subtree.
+   * @param score the score of the key.
+   * @param username the username of the key.
+   * @return the two subtrees, ranked before and not before the key.
+   */
+  private Node[] split(Node node, int score, String username) {
+    if (node == null) {
+      return new Node[] {null, null};
+    }
+    if (compare(score, username, node) > 0) {
+      Node[] parts = split(node.right, score, username);
+      node.right = parts[0];
+      parts[0] = resize(node);
+      return parts;
+    }
+    Node[] parts = split(node.left, score, username);
+    node.left = parts[1];
+    parts[1] = resize(node);
+    return parts;
+  }
+
+  /**
+   * Merges two subtrees, all nodes of the first are ranked before the nodes of the second.
+   *
+   * @param first the subtree ranked first.
+   * @param second the subtree ranked second.
+   * @return the root of the merged subtree.
+   */
+  private Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      first.right = merge(first.right, second);
+      return resize(first);
+    }
+    second.left = merge(first, second.left);
+    return resize(second);
+  }
+
+  /**
+   * Removes the node with the given key from a subtree.
+   *
+   * @param node the root of the subtree.
+   * @param score the score of the key.
+   * @param username the username of the key.
+   * @return the new root of the subtree.
+   */
+  private Node remove(Node node, int score, String username) {
+    if (node == null) {
+      return null;
+    }
+    int comparison = compare(score, username, node);
+    if (comparison == 0) {
+      return merge(node.left, node.right);
+    }
+    if (comparison < 0) {
+      node.left = remove(node.left, score, username);
+    } else {
+      node.right = remove(node.right, score, username);
+    }
+    return resize(node);
+  }
+
+  /**
+   * Compares a key with the key of a node in rank order.
+   *
+   * @param score the score of the key.
+   * @param username the username of the key.
+   * @param node the node to compare with.
+   * @return a negative number if the key is ranked before the node, 0 if equal, a positive number otherwise.
+   */
+  private int compare(int score, String username, Node node) {
+    if (score != node.score) {
+      return score > node.score ? -1 : 1;
+    }
+    return username.compareTo(node.username);
+  }
+
+  /**
+   * Recalculates the subtree size of a node after its children have changed.
+   *
+   * @param node the node to update.
+   * @return the node.
+   */
+  private Node resize(Node node) {
+    node.size = size(node.left) + size(node.right) + 1;
+    return node;
+  }
+
+  /**
+   * Returns the size of a subtree.
+   *
+   * @param node the root of the subtree, may be null.
+   * @return the number of nodes in the subtree.
+   */
+  private int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+}
@@ -0,0 +1,101 @@
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reads the scores of all users page by page on a background thread, so that the {@link RankIndex}
+ * can be filled without delaying the start of the server. The loader uses its own connection to the database.
+ * The pages are handed over to the game thread, which applies a few of them per frame.
+ */
+public class RankIndexLoader implements Runnable {
+  private final int PAGESIZE = 5000;
+  private String databasePath;
+  private ConcurrentLinkedQueue<Page> pages;
+  private volatile boolean finished;
+  private volatile boolean failed;
+
+  /**
+   * A page of usernames with their scores, as read from the database.
+   */
+  private class Page {
+    private String[] usernames = new String[PAGESIZE];
+    private int[] scores = new int[PAGESIZE];
+    private int size;
+  }
+
+  /**
+   * Constructs a loader for a database file.
+   *
+   * @param databasePath the absolute path of the SQLite database.
+   */
+  public RankIndexLoader(String databasePath) {
+    this.databasePath = databasePath;
+    this.pages = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Starts loading on a background thread.
+   */
+  public void start() {
+    Thread thread = new Thread(this, "RankIndexLoader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Reads the users ordered by their ID, each page continues after the last ID of the previous page.
+   */
+  @Override
+    public void run() {
+    try (java.sql.Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+      PreparedStatement statement = connection.prepareStatement("SELECT id, username, score FROM users WHERE id > ? ORDER BY id LIMIT ?")) {
+      long lastId = 0;
+      Page page;
+      do {
+        page = new Page();
+        statement.setLong(1, lastId);
+        statement.setInt(2, PAGESIZE);
+        try (ResultSet result = statement.executeQuery()) {
+          while (result.next()) {
+            lastId = result.getLong(1);
+            page.usernames[page.size] = result.getString(2);
+            page.scores[page.size] = result.getInt(3);
+            page.size++;
+          }
+        }
+        if (page.size > 0) {
+          pages.add(page);
+        }
+      } while (page.size == PAGESIZE);
+    }
+    catch (SQLException sqle) {
+      failed = true;
+      sqle.printStackTrace();
+    }
+    finished = true;
+  }
+
+  /**
+   * Applies loaded pages to the rank index. Users that are already indexed are skipped,
+   * because their score was changed by the game after the page was read.
+   *
+   * @param rankIndex the index to fill.
+   * @param maxPages the maximum number of pages to apply.
+   * @return true if all users have been loaded and applied.
+   */
+  public boolean applyPages(RankIndex rankIndex, int maxPages) {
+    Page page;
+    int appliedPages = 0;
+    while (appliedPages < maxPages && (page = pages.poll()) != null) {
+      for (int i = 0; i < page.size; i++) {
+        if (!rankIndex.contains(page.usernames[i])) {
+          rankIndex.put(page.usernames[i], page.scores[i]);
+        }
+      }
+      appliedPages++;
+    }
+    return finished && !failed && pages.isEmpty();
+  }
+}
@@ -1,10 +1,13 @@
 /**
  * Displays a scoreboard using sliders to show the highest scores dynamically, which extends {@link Component}.
  * This component is designed to visually represent the top user scores.
+ * It also sends the top scores to the clients, each client receives the board of the score window it has subscribed to.
  */
 public class ScoreBoard extends Component {
   private Slider[] sliders;
   private Textlabel title;
+  private int shownVersion = -1;
+  private int[] sentWindowVersions;
   /**
    * Constructs a ScoreBoard with specified parameters and initializes its components.
    *
@@ -49,33 +52,107 @@ public class ScoreBoard extends Component {
     update();
   }
   /**
-   * Updates the sliders with current high scores. This method fetches the top user scores and updates the sliders accordingly.
-   * It also formats and sends the current top scores to clients.
+   * Updates the sliders with current high scores and sends the top scores to the clients,
+   * but only for the leaderboard and the score windows that have changed since the last update.
    */
   public void update() {
+    updateTotalScores();
+    UserList userList = Application.getInstance().getUserList();
+    if (sentWindowVersions == null) {
+      sentWindowVersions = new int[userList.getScoreWindowCount()];
+    }
+    for (int i = 0; i < sentWindowVersions.length; i++) {
+      if (userList.getScoreWindow(i).getVersion() != sentWindowVersions[i]) {
+        sentWindowVersions[i] = userList.getScoreWindow(i).getVersion();
+        int window = i + 1;
+        Application.getInstance().getServerSide().writeToClients(getWindowTopscores(window), connection -> connection.getScoreWindow() == window);
+      }
+    }
+  }
+
+  /**
+   * Updates the sliders with current high scores, but only if the leaderboard has changed since the last update.
+   * The changed top scores are also sent to the clients that have subscribed to the total scores.
+   */
+  private void updateTotalScores() {
+    Leaderboard leaderboard = Application.getInstance().getUserList().getLeaderboard();
+    if (leaderboard.getVersion() == shownVersion) {
+      return;
+    }
+    shownVersion = leaderboard.getVersion();
     super.drawOver();
 
-    User[] highestScoringUsers = Application.getInstance().getUserList().getUsersWithHighestScores(sliders.length);
+    User[] highestScoringUsers = leaderboard.getTopUsers(sliders.length);
+    for (int i = 0; i < sliders.length; i++) {
+      if (i < highestScoringUsers.length) {
+        sliders[i].setRange(0, max(highestScoringUsers[0].getScore(), 1)); // set range of all sliders to the highest score (first user)
+        sliders[i].setValue(highestScoringUsers[i].getScore());
+        sliders[i].setLabel(highestScoringUsers[i].getUsername());
+        // Align the label of the slider
+        sliders[i].getCaptionLabel().align(ControlP5.LEFT, ControlP5.BOTTOM_OUTSIDE).setPaddingX(5);
+        sliders[i].show();
+      } else {
+        sliders[i].hide();
+      }
+    }
+    //send changed topscores to clients:
+    Application.getInstance().getServerSide().writeToClients(getTopscores(), connection -> connection.getScoreWindow() == 0);
+  }
+
+  /**
+   * Subscribes a client to the top scores of a score window and sends it the current top scores of the window.
+   * Unknown windows subscribe the client to the total scores.
+   *
+   * @param connection the connection of the client.
+   * @param input the subscription, formatted as "SubscribeTopscores;;;window".
+   */
+  public void subscribe(Connection connection, Message input) {
+    int window = input.getInt(0);
+    if (window < 0 || window > Application.getInstance().getUserList().getScoreWindowCount()) {
+      window = 0;
+    }
+    connection.setScoreWindow(window);
+    sendTopscores(connection);
+  }
+
+  /**
+   * Sends the current top scores of the subscribed window to a single client, e.g. because it has just connected.
+   *
+   * @param connection the connection of the client.
+   */
+  public void sendTopscores(Connection connection) {
+    if (connection.getScoreWindow() == 0) {
+      Application.getInstance().getServerSide().writeToClient(connection, getTopscores());
+    } else {
+      Application.getInstance().getServerSide().writeToClient(connection, getWindowTopscores(connection.getScoreWindow()));
+    }
+  }
 
-    if (highestScoringUsers != null) {
-      // Ensure we do not exceed the actual number of highest scoring users returned
-      int numUsersToUpdate = Math.min(sliders.length, highestScoringUsers.length);
-      String scoreListForClients = "";
+  /**
+   * Builds the message with the current top scores.
+   *
+   * @return a message formatted as "Topscores;;;username;;;score;;;username;;;score...".
+   */
+  private Message getTopscores() {
+    Message scoreListForClients = new Message("Topscores");
+    for (User user : Application.getInstance().getUserList().getLeaderboard().getTopUsers(sliders.length)) {
+      scoreListForClients.add(user.getUsername()).add(user.getScore());
+    }
+    return scoreListForClients;
+  }
 
-      for (int i = 0; i < numUsersToUpdate; i++) {
-        // Check if each user element is not null to avoid NullPointerException
-        if (highestScoringUsers[i] != null) {
-          scoreListForClients += ";;;"+highestScoringUsers[i].getUsername()+";;;" + highestScoringUsers[i].getScore();
-          sliders[i].setRange(0, max(highestScoringUsers[0].getScore(), 1)); // set range of all sliders to the highest score (first user)
-          sliders[i].setValue(highestScoringUsers[i].getScore());
-          sliders[i].setLabel(highestScoringUsers[i].getUsername());
-          // Align the label of the slider
-          sliders[i].getCaptionLabel().align(ControlP5.LEFT, ControlP5.BOTTOM_OUTSIDE).setPaddingX(5);
-          sliders[i].show();
-        }
-      }
-      //send current topscores to client:
-      Application.getInstance().getServerSide().writeToClients("Topscores"+scoreListForClients);
+  /**
+   * Builds the message with the current top scores of a score window.
+   *
+   * @param window the index of the time window plus 1.
+   * @return a message formatted as "WindowTopscores;;;window;;;username;;;points;;;username;;;points...".
+   */
+  private Message getWindowTopscores(int window) {
+    ScoreWindow scoreWindow = Application.getInstance().getUserList().getScoreWindow(window - 1);
+    Message scoreListForClients = new Message("WindowTopscores").add(window);
+    for (String username : scoreWindow.getTopUsernames(sliders.length)) {
+      scoreListForClients.add(username).add(scoreWindow.getPoints(username));
     }
+    return scoreListForClients;
   }
 }
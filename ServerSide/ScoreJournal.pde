@@ -0,0 +1,365 @@
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of all score changes, written to memory-mapped segment files.
+ * Each record holds the new score of a user together with the awarded points, the reason and the round,
+ * and is protected by a CRC32 checksum, so that a record torn by a crash is detected and ignored.
+ * The {@link ScorePersister} folds the changes into the users table and stores the sequence number of the last
+ * folded record as checkpoint. Segments that only hold records up to the checkpoint are moved to the archive directory,
+ * where they are kept as audit trail of the rounds. On startup, the records after the checkpoint are replayed.
+ * Only the current segment is mapped, segments are read into the heap, since a file that is mapped cannot be moved on Windows.
+ */
+public class ScoreJournal {
+  public static final byte GUESSED = 0;
+  public static final byte DREW = 1;
+  private final int SEGMENTSIZE = 1 << 20;
+  private final int HEADERSIZE = 8;
+  private final int MAXRECORDSIZE = HEADERSIZE + 8 + 8 + 8 + 1 + 4 + 4 + 2 + 0xFFFF;
+  private final String SEGMENTPREFIX = "scores-";
+  private final String SEGMENTSUFFIX = ".journal";
+  private File directory;
+  private File archiveDirectory;
+  private ArrayList<File> segments;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private long nextSequence;
+  private CRC32 checksum;
+  private File unmovedSegment;
+
+  /**
+   * A score change read from the journal.
+   */
+  public class Entry {
+    private long sequence;
+    private long timestamp;
+    private long round;
+    private byte reason;
+    private int points;
+    private int score;
+    private String username;
+
+    /**
+     * Returns the sequence number of the record.
+     * @return the sequence number.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Returns the time of the change.
+     * @return the time in ms.
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * Returns the points awarded by the change.
+     * @return the awarded points.
+     */
+    public int getPoints() {
+      return points;
+    }
+
+    /**
+     * Returns the username of the user whose score changed.
+     * @return the username.
+     */
+    public String getUsername() {
+      return username;
+    }
+
+    /**
+     * Returns the score of the user after the change.
+     * @return the new score.
+     */
+    public int getScore() {
+      return score;
+    }
+  }
+
+  /**
+   * Constructs a journal in a directory, the directory and its archive directory are created if necessary.
+   *
+   * @param directoryPath the absolute path of the journal directory.
+   */
+  public ScoreJournal(String directoryPath) {
+    directory = new File(directoryPath);
+    archiveDirectory = new File(directory, "archive");
+    archiveDirectory.mkdirs();
+    segments = new ArrayList<>();
+    checksum = new CRC32();
+  }
+
+  /**
+   * Reads all segments and maps the newest segment for appending. Reading stops at the first record with an invalid
+   * checksum, the following records are overwritten by the next appends.
+   *
+   * @param checkpoint the sequence number of the last record that has been folded into the database.
+   * @return the records after the checkpoint in sequence order.
+   * @throws IOException if a segment cannot be read or mapped.
+   */
+  public synchronized ArrayList<Entry> open(long checkpoint) throws IOException {
+    ArrayList<Entry> entries = new ArrayList<>();
+    File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENTPREFIX) && name.endsWith(SEGMENTSUFFIX));
+    Arrays.sort(files);
+    nextSequence = checkpoint + 1;
+    int validBytes = 0;
+    for (File file : files) {
+      segments.add(file);
+      ByteBuffer segmentBuffer = readSegment(file, Integer.MAX_VALUE);
+      Entry entry;
+      while ((entry = read(segmentBuffer)) != null) {
+        if (entry.sequence > checkpoint) {
+          entries.add(entry);
+        }
+        nextSequence = Math.max(nextSequence, entry.sequence + 1);
+      }
+      validBytes = segmentBuffer.position();
+    }
+    if (segments.isEmpty()) {
+      createSegment();
+    } else {
+      mapSegment(segments.get(segments.size() - 1));
+      buffer.position(validBytes);
+    }
+    return entries;
+  }
+
+  /**
+   * Reads the records written since a point in time from the archived and the current segments,
+   * e.g. to restore the points of the last week. Segments whose successor starts before that time are skipped
+   * without being read, so only the segments of the requested time span are scanned.
+   *
+   * @param since the time in ms of the oldest record to return.
+   * @return the records since that time in sequence order.
+   * @throws IOException if a segment cannot be read.
+   */
+  public synchronized ArrayList<Entry> readSince(long since) throws IOException {
+    ArrayList<File> files = new ArrayList<>();
+    for (File dir : new File[] {archiveDirectory, directory}) {
+      files.addAll(Arrays.asList(dir.listFiles((parent, name) -> name.startsWith(SEGMENTPREFIX) && name.endsWith(SEGMENTSUFFIX))));
+    }
+    files.sort((first, second) -> Long.compare(firstSequence(first), firstSequence(second)));
+    int firstFile = 0;
+    for (int i = files.size() - 1; i > 0; i--) {
+      Entry first = readFirst(files.get(i));
+      if (first != null && first.timestamp <= since) {
+        firstFile = i;
+        break;
+      }
+    }
+    ArrayList<Entry> entries = new ArrayList<>();
+    for (int i = firstFile; i < files.size(); i++) {
+      ByteBuffer segmentBuffer = readSegment(files.get(i), Integer.MAX_VALUE);
+      Entry entry;
+      while ((entry = read(segmentBuffer)) != null) {
+        if (entry.timestamp >= since) {
+          entries.add(entry);
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Appends a score change to the journal. The record is written to the mapped segment and reaches the disk
+   * with the next {@link #force()} or when the operating system writes the page back.
+   *
+   * @param username the username of the user.
+   * @param points the awarded points.
+   * @param score the score of the user after the change.
+   * @param reason the reason of the change, {@link #GUESSED} or {@link #DREW}.
+   * @param round the start time of the round the points were awarded in.
+   * @return the sequence number of the record.
+   */
+  public synchronized long append(String username, int points, int score, byte reason, long round) {
+    byte[] name = username.getBytes(StandardCharsets.UTF_8);
+    int length = 8 + 8 + 8 + 1 + 4 + 4 + 2 + name.length;
+    if (buffer.remaining() < HEADERSIZE + length) {
+      try {
+        createSegment();
+      }
+      catch (IOException ioe) {
+        ioe.printStackTrace();
+        return -1;
+      }
+    }
+    long sequence = nextSequence++;
+    int start = buffer.position();
+    buffer.position(start + HEADERSIZE);
+    buffer.putLong(sequence);
+    buffer.putLong(System.currentTimeMillis());
+    buffer.putLong(round);
+    buffer.put(reason);
+    buffer.putInt(points);
+    buffer.putInt(score);
+    buffer.putShort((short) name.length);
+    buffer.put(name);
+    int end = buffer.position();
+    checksum.reset();
+    for (int i = start + HEADERSIZE; i < end; i++) {
+      checksum.update(buffer.get(i));
+    }
+    buffer.putInt(start + 4, (int) checksum.getValue());
+    // the length is written last, so that a record is only visible once it is complete
+    buffer.putInt(start, length);
+    return sequence;
+  }
+
+  /**
+   * Writes the appended records of the current segment to the disk.
+   */
+  public synchronized void force() {
+    buffer.force();
+  }
+
+  /**
+   * Moves all segments except the current one to the archive, if their records have been folded into the database.
+   * A segment that cannot be moved stays in the journal and is moved by a later checkpoint. This happens on Windows
+   * while the mapping of a segment that has just been filled is still alive, it is released once its buffer has been garbage collected.
+   *
+   * @param checkpoint the sequence number of the last record that has been folded into the database.
+   */
+  public synchronized void checkpoint(long checkpoint) {
+    while (segments.size() > 1 && firstSequence(segments.get(1)) - 1 <= checkpoint) {
+      File segment = segments.get(0);
+      try {
+        Files.move(segment.toPath(), new File(archiveDirectory, segment.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (IOException ioe) {
+        if (!segment.equals(unmovedSegment)) {
+          unmovedSegment = segment;
+          println("Could not archive " + segment.getName() + " yet, retrying at the next checkpoint: " + ioe);
+        }
+        return;
+      }
+      segments.remove(0);
+    }
+  }
+
+  /**
+   * Writes the appended records to the disk and closes the current segment.
+   */
+  public synchronized void close() {
+    try {
+      buffer.force();
+      channel.close();
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+  }
+
+  /**
+   * Reads the first record of a segment.
+   *
+   * @param segment the segment file.
+   * @return the first record, or null if the segment is empty.
+   * @throws IOException if the segment cannot be read.
+   */
+  private Entry readFirst(File segment) throws IOException {
+    return read(readSegment(segment, MAXRECORDSIZE));
+  }
+
+  /**
+   * Reads the beginning of a segment into a heap buffer.
+   *
+   * @param segment the segment file.
+   * @param maxBytes the maximum number of bytes to read.
+   * @return the buffer holding the bytes read, positioned at the start of the segment.
+   * @throws IOException if the segment cannot be read.
+   */
+  private ByteBuffer readSegment(File segment, int maxBytes) throws IOException {
+    try (FileChannel segmentChannel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer segmentBuffer = ByteBuffer.allocate((int) Math.min(segmentChannel.size(), maxBytes));
+      while (segmentBuffer.hasRemaining() && segmentChannel.read(segmentBuffer) >= 0) {
+        // read until the buffer is full or the segment ends
+      }
+      segmentBuffer.flip();
+      return segmentBuffer;
+    }
+  }
+
+  /**
+   * Reads the record at the position of a buffer and advances the position behind it.
+   *
+   * @param segmentBuffer the buffer of a segment.
+   * @return the record, or null if the segment ends or the record is incomplete or corrupted.
+   */
+  private Entry read(ByteBuffer segmentBuffer) {
+    int start = segmentBuffer.position();
+    if (segmentBuffer.remaining() < HEADERSIZE) {
+      return null;
+    }
+    int length = segmentBuffer.getInt(start);
+    if (length <= 0 || length > segmentBuffer.remaining() - HEADERSIZE) {
+      return null;
+    }
+    checksum.reset();
+    for (int i = start + HEADERSIZE; i < start + HEADERSIZE + length; i++) {
+      checksum.update(segmentBuffer.get(i));
+    }
+    if ((int) checksum.getValue() != segmentBuffer.getInt(start + 4)) {
+      return null;
+    }
+    segmentBuffer.position(start + HEADERSIZE);
+    Entry entry = new Entry();
+    entry.sequence = segmentBuffer.getLong();
+    entry.timestamp = segmentBuffer.getLong();
+    entry.round = segmentBuffer.getLong();
+    entry.reason = segmentBuffer.get();
+    entry.points = segmentBuffer.getInt();
+    entry.score = segmentBuffer.getInt();
+    byte[] name = new byte[segmentBuffer.getShort()];
+    segmentBuffer.get(name);
+    entry.username = new String(name, StandardCharsets.UTF_8);
+    return entry;
+  }
+
+  /**
+   * Closes the current segment and creates a new one, named after the sequence number of its first record.
+   *
+   * @throws IOException if the segment cannot be created.
+   */
+  private void createSegment() throws IOException {
+    if (channel != null) {
+      buffer.force();
+      channel.close();
+    }
+    File segment = new File(directory, SEGMENTPREFIX + String.format("%019d", nextSequence) + SEGMENTSUFFIX);
+    segments.add(segment);
+    mapSegment(segment);
+  }
+
+  /**
+   * Opens a segment and maps it for appending.
+   *
+   * @param segment the segment file.
+   * @throws IOException if the segment cannot be opened or mapped.
+   */
+  private void mapSegment(File segment) throws IOException {
+    channel = FileChannel.open(segment.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENTSIZE);
+  }
+
+  /**
+   * Returns the sequence number of the first record of a segment, taken from its name.
+   *
+   * @param segment the segment file.
+   * @return the first sequence number.
+   */
+  private long firstSequence(File segment) {
+    String name = segment.getName();
+    return Long.parseLong(name.substring(SEGMENTPREFIX.length(), name.length() - SEGMENTSUFFIX.length()));
+  }
+}
@@ -0,0 +1,190 @@
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Writes changed scores to the database on a background thread instead of updating the database on the draw thread
+ * for every award. Changes of the same user are coalesced, only the latest score is written.
+ * The changed scores are written in one transaction with a prepared statement, either after the flush interval
+ * or as soon as the batch size is reached. Stopping the persister writes the remaining scores.
+ * Every score change has been appended to the {@link ScoreJournal} before. Together with the scores, the sequence number
+ * of the last journal record that is contained in the written scores is stored as checkpoint of the journal.
+ */
+public class ScorePersister implements Runnable {
+  private String databasePath;
+  private long flushInterval;
+  private int batchSize;
+  private HashMap<String, Integer> dirtyScores;
+  private HashMap<String, Integer> flushingScores;
+  private ScoreJournal journal;
+  private long latestSequence;
+  private volatile boolean running;
+  private Thread thread;
+
+  /**
+   * Constructs a persister for a database file.
+   *
+   * @param databasePath the absolute path of the SQLite database.
+   * @param flushInterval the maximum time in ms a changed score is held back.
+   * @param batchSize the number of changed users after which the scores are written immediately.
+   * @param journal the journal the score changes are appended to.
+   */
+  public ScorePersister(String databasePath, long flushInterval, int batchSize, ScoreJournal journal) {
+    this.databasePath = databasePath;
+    this.journal = journal;
+    this.flushInterval = flushInterval;
+    this.batchSize = batchSize;
+    this.dirtyScores = new HashMap<>();
+    this.flushingScores = new HashMap<>();
+  }
+
+  /**
+   * Starts the background thread.
+   */
+  public void start() {
+    running = true;
+    thread = new Thread(this, "ScorePersister");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Writes the remaining scores and stops the background thread. Blocks until the scores are written.
+   */
+  public void stop() {
+    running = false;
+    synchronized (this) {
+      notifyAll();
+    }
+    try {
+      thread.join();
+    }
+    catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Marks the score of a user as changed. The score will be written with the next flush.
+   *
+   * @param username the username of the user.
+   * @param score the new score of the user.
+   * @param sequence the sequence number of the journal record of the change.
+   */
+  public synchronized void scoreChanged(String username, int score, long sequence) {
+    dirtyScores.put(username, score);
+    latestSequence = Math.max(latestSequence, sequence);
+    if (dirtyScores.size() >= batchSize) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Returns the score of a user that has not been written to the database yet,
+   * so that a user that is loaded again from the database does not lose points.
+   *
+   * @param username the username of the user.
+   * @return the pending score, or null if the database holds the latest score.
+   */
+  public synchronized Integer getPendingScore(String username) {
+    Integer score = dirtyScores.get(username);
+    return score != null ? score : flushingScores.get(username);
+  }
+
+  /**
+   * Returns the scores of all users that have not been written to the database yet, e.g. to count the ranks in the database.
+   *
+   * @return a copy of the pending scores keyed by username.
+   */
+  public synchronized HashMap<String, Integer> getPendingScores() {
+    HashMap<String, Integer> scores = new HashMap<>(flushingScores);
+    scores.putAll(dirtyScores);
+    return scores;
+  }
+
+  /**
+   * Waits for changed scores and writes them until the persister is stopped, then writes the remaining scores.
+   */
+  @Override
+    public void run() {
+    try (java.sql.Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath)) {
+      Statement pragma = connection.createStatement();
+      pragma.execute("PRAGMA busy_timeout = 5000");
+      pragma.close();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement("UPDATE users SET score = ? WHERE username = ?");
+        PreparedStatement checkpointStatement = connection.prepareStatement("UPDATE journalCheckpoint SET sequence = ? WHERE id = 0")) {
+        while (running) {
+          synchronized (this) {
+            if (running && dirtyScores.size() < batchSize) {
+              wait(flushInterval);
+            }
+          }
+          flush(connection, statement, checkpointStatement);
+        }
+        flush(connection, statement, checkpointStatement);
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+    catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Writes all changed scores and the checkpoint of the journal in one transaction. All journal records up to the
+   * checkpoint are contained in the written scores, because every earlier change has been written by this or a previous flush.
+   * If the transaction fails, the scores are marked as changed again, unless a newer score has been set in the meantime.
+   *
+   * @param connection the connection to the database.
+   * @param statement the prepared update statement.
+   * @param checkpointStatement the prepared statement updating the checkpoint.
+   */
+  private void flush(java.sql.Connection connection, PreparedStatement statement, PreparedStatement checkpointStatement) {
+    long checkpoint;
+    synchronized (this) {
+      if (dirtyScores.isEmpty()) {
+        return;
+      }
+      HashMap<String, Integer> swap = flushingScores;
+      flushingScores = dirtyScores;
+      dirtyScores = swap;
+      checkpoint = latestSequence;
+    }
+    journal.force();
+    try {
+      for (Map.Entry<String, Integer> entry : flushingScores.entrySet()) {
+        statement.setInt(1, entry.getValue());
+        statement.setString(2, entry.getKey());
+        statement.addBatch();
+      }
+      statement.executeBatch();
+      checkpointStatement.setLong(1, checkpoint);
+      checkpointStatement.executeUpdate();
+      connection.commit();
+      journal.checkpoint(checkpoint);
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+      try {
+        statement.clearBatch();
+        connection.rollback();
+      }
+      catch (SQLException rollbackException) {
+        rollbackException.printStackTrace();
+      }
+      synchronized (this) {
+        for (Map.Entry<String, Integer> entry : flushingScores.entrySet()) {
+          dirtyScores.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    synchronized (this) {
+      flushingScores.clear();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Leaderboard of the points awarded within a rolling time window, e.g. the last 24 hours.
+ * The window is divided into buckets of equal length, each holding the points per user awarded within its time span.
+ * Every award adds to the current bucket and to the totals of the window, and whenever a bucket falls out of the window,
+ * its points are subtracted from the totals, so the totals are never recomputed from the history.
+ * The totals are ranked by a {@link RankIndex}, which serves the best users in O(K + log n).
+ * A window with a bucket length of 0 never expires, e.g. for the points of the current session.
+ */
+public class ScoreWindow {
+  private String name;
+  private long bucketLength;
+  private int bucketCount;
+  private ArrayDeque<Bucket> buckets;
+  private RankIndex totals;
+  private int version;
+
+  /**
+   * The points per user awarded within the time span of a bucket.
+   */
+  private class Bucket {
+    private long index;
+    private HashMap<String, Integer> points = new HashMap<>();
+  }
+
+  /**
+   * Constructs an empty window.
+   *
+   * @param name the name of the window shown to the players.
+   * @param bucketLength the time span of a bucket in ms, or 0 if the window never expires.
+   * @param bucketCount the number of buckets the window spans.
+   */
+  public ScoreWindow(String name, long bucketLength, int bucketCount) {
+    this.name = name;
+    this.bucketLength = bucketLength;
+    this.bucketCount = bucketCount;
+    this.buckets = new ArrayDeque<>();
+    this.totals = new RankIndex();
+  }
+
+  /**
+   * Adds points awarded to a user. Awards are expected in the order of their timestamps,
+   * an award older than the newest bucket is added to the newest bucket.
+   *
+   * @param username the username of the user.
+   * @param points the awarded points.
+   * @param timestamp the time of the award in ms.
+   */
+  public void award(String username, int points, long timestamp) {
+    if (bucketLength > 0) {
+      long index = timestamp / bucketLength;
+      expire(index);
+      Bucket bucket = buckets.peekLast();
+      if (bucket == null || bucket.index < index) {
+        bucket = new Bucket();
+        bucket.index = index;
+        buckets.addLast(bucket);
+      }
+      bucket.points.merge(username, points, Integer::sum);
+    }
+    totals.put(username, totals.getScore(username) + points);
+    version++;
+  }
+
+  /**
+   * Subtracts the points of the buckets that have fallen out of the window. Should be called regularly,
+   * e.g. once per frame, so that the window also shrinks while no points are awarded.
+   *
+   * @param now the current time in ms.
+   */
+  public void update(long now) {
+    if (bucketLength > 0) {
+      expire(now / bucketLength);
+    }
+  }
+
+  /**
+   * Returns the best users of the window in rank order.
+   *
+   * @param amount the number of users to return.
+   * @return the usernames of the best users, fewer if fewer users were awarded points within the window.
+   */
+  public String[] getTopUsernames(int amount) {
+    return totals.getTopUsernames(amount);
+  }
+
+  /**
+   * Returns the points of a user within the window.
+   *
+   * @param username the username of the user.
+   * @return the points of the user, 0 if the user was not awarded points within the window.
+   */
+  public int getPoints(String username) {
+    return totals.getScore(username);
+  }
+
+  /**
+   * Returns the name of the window.
+   *
+   * @return the name shown to the players.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the version of the window, which is incremented on every change of the totals.
+   *
+   * @return the current version.
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * Removes the buckets that lie before the window ending with the given bucket
+   * and subtracts their points from the totals. Users without points left are removed from the ranking.
+   *
+   * @param currentIndex the index of the current bucket.
+   */
+  private void expire(long currentIndex) {
+    while (!buckets.isEmpty() && buckets.peekFirst().index <= currentIndex - bucketCount) {
+      for (Map.Entry<String, Integer> entry : buckets.pollFirst().points.entrySet()) {
+        int points = totals.getScore(entry.getKey()) - entry.getValue();
+        if (points > 0) {
+          totals.put(entry.getKey(), points);
+        } else {
+          totals.remove(entry.getKey());
+        }
+      }
+      version++;
+    }
+  }
+}
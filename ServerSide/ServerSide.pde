@@ -1,7 +1,9 @@
-import processing.net.*;
 import controlP5.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 
 private Application appInstance;
 private Canvas canvas;
@@ -16,11 +18,40 @@ private final int MAXPOINTSFORDRAWING = 400;
 private final int MINPOINTSFORDRAWING = 100;
 private boolean gameOver;
 private long currentGameDuration;
+private final int PORT = 12345;
+private final int INGESTMESSAGEBUDGET = 500;
+private final long INGESTTIMEBUDGETNANOS = 8000000;
+private final long BACKLOGREPORTINTERVAL = 1000;
+private final long HEARTBEATTIMEOUT = 2000;
+private final String WORDPACKDIRECTORY = "data";
+private final String JOURNALDIRECTORY = "data/journal";
+private long timestampLastBacklogReport;
+private long timestampLastHashingReport;
+private MessageEncoder encoder = new MessageEncoder();
 
 /**
  * Sets the properties of the GUI and initializes the different GUI components.
+ * When started with the argument "--benchmark", the benchmarks are run instead and the sketch exits.
+ * When started with the argument "--compile-words", the word pack is compiled from the words table instead and the sketch exits.
+ * When started with the argument "--test", the self-tests are run instead and the sketch exits.
  */
 void setup() {
+  if (args != null && Arrays.asList(args).contains("--benchmark")) {
+    runBenchmarks();
+    exit();
+    return;
+  }
+  if (args != null && Arrays.asList(args).contains("--test")) {
+    runTests();
+    exit();
+    return;
+  }
+  if (args != null && Arrays.asList(args).contains("--compile-words")) {
+    compileWordPack();
+    exit();
+    return;
+  }
+
   Color customRed = new Color(255, 102, 102);
   Color customDarkRed = new Color (139, 0, 0);
   Color customBlue =new Color(174, 198, 207);
@@ -30,10 +61,13 @@ void setup() {
 
   appInstance = Application.getInstance();
   appInstance.setControlP5(new ControlP5(this));
-  appInstance.setServer(new Server(this, 12345));
+  appInstance.setNetworkEngine(new NetworkEngine(PORT));
+  appInstance.setMessageDispatcher(new MessageDispatcher());
+  appInstance.setPresenceService(new PresenceService(HEARTBEATTIMEOUT));
   appInstance.setServerSide(this);
-  appInstance.setUserList(new UserList("data/data.sqlite"));
-  appInstance.setWordList(new WordList("data/data.sqlite"));
+  appInstance.setDatabase(new Database("data/data.sqlite"));
+  appInstance.setUserList(new UserList(appInstance.getDatabase(), new File(sketchPath(JOURNALDIRECTORY))));
+  appInstance.setWordList(new WordList(appInstance.getDatabase(), new File(sketchPath(WORDPACKDIRECTORY))));
 
 
   size(1000, 900);
@@ -47,6 +81,87 @@ void setup() {
   messagePane = new MessagePane(300, 20, 400, 50, 10, this, customRed, customDarkRed, customGreen, customDarkGreen, 3);
   scoreBoard = new ScoreBoard(800, 0, 200, 200, Color.BLACK, Color.BLACK, 0);
   gameOver = true;
+  registerMessageHandlers();
+
+  try {
+    appInstance.getNetworkEngine().start();
+  }
+  catch (IOException ioe) {
+    showMessage("Could not start the server on port " + PORT + ".", true);
+    ioe.printStackTrace();
+  }
+}
+
+/**
+ * Runs all benchmarks and prints their results to the console.
+ */
+private void runBenchmarks() {
+  println("Stroke encoding:");
+  new StrokeBenchmark().run(new File(dataPath("traces")));
+  println("User lookup:");
+  new UserLookupBenchmark().run();
+  println("Guess matching:");
+  new GuessBenchmark().run(new File(dataPath("chats")));
+  println("Word pack:");
+  new WordPackBenchmark().run();
+}
+
+/**
+ * Runs all self-tests and prints their results to the console.
+ */
+private void runTests() {
+  Application.getInstance().setServerSide(this);
+  SketchTest[] tests = {new WordPackLoaderTest(), new GuessAfterRoundTest(), new RankFallbackTest()};
+  int failures = 0;
+  for (SketchTest test : tests) {
+    println(test.getClass().getSimpleName() + ":");
+    test.run();
+    println(test.getFailures() == 0 ? "  passed" : "  " + test.getFailures() + " checks failed");
+    failures += test.getFailures();
+  }
+  println(failures == 0 ? "All tests passed." : failures + " checks failed.");
+}
+
+/**
+ * Compiles the words table of the database into the word pack and prints the size of the pack.
+ */
+private void compileWordPack() {
+  Application.getInstance().setServerSide(this);
+  Database database = new Database("data/data.sqlite");
+  File packDirectory = new File(sketchPath(WORDPACKDIRECTORY));
+  try {
+    long start = System.nanoTime();
+    WordPackCompiler compiler = new WordPackCompiler();
+    compiler.prepareDB(database.getConnection());
+    File packFile = compiler.compile(database.getConnection(), packDirectory);
+    WordPack wordPack = new WordPack(packFile);
+    println("Compiled " + wordPack.getWordCount() + " words into " + packFile + " (" + wordPack.getSize() + " bytes) in "
+      + (System.nanoTime() - start) / 1000000 + " ms.");
+  }
+  catch (SQLException sqle) {
+    sqle.printStackTrace();
+  }
+  catch (IOException ioe) {
+    ioe.printStackTrace();
+  }
+  database.close();
+}
+
+/**
+ * Writes the remaining scores to the database, stops watching the words, closes the chat archive and the database and stops the network engine before the sketch exits.
+ * Prints the number of messages received per type.
+ */
+@Override
+  public void exit() {
+  if (appInstance != null) {
+    reportMessageCounts();
+    appInstance.getUserList().close();
+    appInstance.getWordList().close();
+    chat.close();
+    appInstance.getDatabase().close();
+    appInstance.getNetworkEngine().stop();
+  }
+  super.exit();
 }
 
 /**
@@ -55,62 +170,178 @@ void setup() {
  * Checks for game status and handles serverside user heartbeat.
  */
 void draw() {
+  appInstance.getUserList().update();
   userPane.update();
   scoreBoard.update();
   canvas.update();
   handleIncomingMessages();
+  reportPasswordHashing();
 
   if (!gameOver) {
     currentGameDuration =  (System.currentTimeMillis() - timestampGamestart) / 1000;
     canvas.setTimerSeconds(currentGameDuration);
   }
   if (Application.getInstance().getUserList().getCurrentUser() != null) {
-    userPane.updateUserHeartbeat("UserHeartbeat;;;"+Application.getInstance().getUserList().getCurrentUser().getUsername());
+    userPane.updateUserHeartbeat(new Message("UserHeartbeat").add(Application.getInstance().getUserList().getCurrentUser().getUsername()));
   }
 }
 
 /**
  * Handles incoming messages from the clients and redirects them to the corresponding methods.
+ * The messages of all clients are received and decoded by the network engine on its own thread,
+ * this method handles the received messages in arrival order until either the message budget or the time budget
+ * of the frame is used up. Messages that do not fit into the budget stay queued for the next frame and are reported as backlog.
  */
 public void handleIncomingMessages() {
-  Server server = appInstance.getServer();
-  Client client = server.available();
-
-
-  if (client != null) {
-    String rawMessage = client.readString();
-
-    //make sure that only one message is processed at a time
-    String pattern = "!MSG(.*?)MSG\\?";
-    Pattern regex = Pattern.compile(pattern);
-    Matcher matcher = regex.matcher(rawMessage);
-
-    // Iterate over all matches and print the captured group
-    while (matcher.find()) {
-      String message = matcher.group(1); // Get the content in the first capturing group
-      //println("Received: " + message);
-      if (message.startsWith("Chat")) {
-        chat.update(message);
-      } else if (message.startsWith("ValidateUserLogin")) {
-        login.clientLogin(message);
-      } else if (message.startsWith("CreateUser")) {
-        login.clientRegistration(message);
-      } else if (message.startsWith("UserHeartbeat")) {
-        userPane.updateUserHeartbeat(message);
-      } else if (message.startsWith("RequestUserStats")) {
-        login.updateClientUserStats(message);
-      }
-    }
+  NetworkEngine networkEngine = appInstance.getNetworkEngine();
+  IncomingMessage incomingMessage;
+  long deadline = System.nanoTime() + INGESTTIMEBUDGETNANOS;
+  int handledMessages = 0;
+
+  while (handledMessages < INGESTMESSAGEBUDGET && System.nanoTime() < deadline && (incomingMessage = networkEngine.poll()) != null) {
+    handledMessages++;
+    //println("Received: " + incomingMessage.getMessage());
+    appInstance.getMessageDispatcher().dispatch(incomingMessage.getConnection(), incomingMessage.getMessage());
+  }
+
+  int backlog = networkEngine.getBacklog();
+  if (backlog > 0 && System.currentTimeMillis() - timestampLastBacklogReport >= BACKLOGREPORTINTERVAL) {
+    timestampLastBacklogReport = System.currentTimeMillis();
+    println("Ingest backlog: " + backlog + " messages waiting after handling " + handledMessages + " messages this frame.");
   }
 }
+
 /**
- * Sends a formatted message to all clients in a specific format.
+ * Reports the queue depth and latency of the password hashing while logins or registrations are waiting for a worker.
+ */
+private void reportPasswordHashing() {
+  PasswordHasher passwordHasher = appInstance.getUserList().getPasswordHasher();
+  int queueDepth = passwordHasher.getQueueDepth();
+  if (queueDepth > 0 && System.currentTimeMillis() - timestampLastHashingReport >= BACKLOGREPORTINTERVAL) {
+    timestampLastHashingReport = System.currentTimeMillis();
+    println("Password hashing: " + queueDepth + " requests queued, average hash " + passwordHasher.getAverageHashNanos() / 1000
+      + " us, average wait " + passwordHasher.getAverageWaitNanos() / 1000 + " us, " + passwordHasher.getRejectedCount() + " rejected.");
+  }
+}
+
+/**
+ * Prints the number of messages received per type since the server was started, and the number of messages without a handler.
+ */
+private void reportMessageCounts() {
+  MessageDispatcher dispatcher = appInstance.getMessageDispatcher();
+  StringBuilder report = new StringBuilder("Received messages:");
+  for (Map.Entry<String, Integer> count : new TreeMap<>(dispatcher.getCounts()).entrySet()) {
+    report.append(' ').append(count.getKey()).append(' ').append(count.getValue()).append(',');
+  }
+  println(report + " " + dispatcher.getUnhandledCount() + " unhandled.");
+}
+
+/**
+ * Registers the handlers of all message types the server receives from clients.
+ */
+private void registerMessageHandlers() {
+  MessageDispatcher dispatcher = appInstance.getMessageDispatcher();
+  dispatcher.register("Connected", (connection, message) -> clientConnected(connection));
+  dispatcher.register("Disconnected", (connection, message) -> connection.discard());
+  dispatcher.register("Hello", (connection, message) -> handshake(connection, message));
+  dispatcher.register("RequestPresenceSnapshot", (connection, message) -> appInstance.getPresenceService().sendSnapshot(connection));
+  dispatcher.register("Chat", (connection, message) -> chat.update(connection, message));
+  dispatcher.register("ValidateUserLogin", (connection, message) -> login.clientLogin(connection, message));
+  dispatcher.register("CreateUser", (connection, message) -> login.clientRegistration(connection, message));
+  dispatcher.register("UserHeartbeat", (connection, message) -> userPane.updateUserHeartbeat(message));
+  dispatcher.register("RequestUserStats", (connection, message) -> login.updateClientUserStats(connection, message));
+  dispatcher.register("SubscribeTopscores", (connection, message) -> scoreBoard.subscribe(connection, message));
+}
+
+/**
+ * Sends the current state of the game to a client that has just connected.
+ * Afterwards, the client only receives changes.
+ *
+ * @param connection the connection of the client.
+ */
+private void clientConnected(Connection connection) {
+  appInstance.getPresenceService().sendSnapshot(connection);
+  scoreBoard.sendTopscores(connection);
+}
+
+/**
+ * Answers the protocol handshake of a client with the negotiated protocol version and the ID assigned to its connection.
+ * The answer is always sent as text frame, the negotiated protocol is used for all following messages,
+ * starting with the snapshot of the connected users.
+ *
+ * @param connection the connection of the client that sent the handshake.
+ * @param input the handshake, formatted as "Hello;;;protocolVersion".
+ */
+private void handshake(Connection connection, Message input) {
+  int protocolVersion = Protocol.negotiate(input.getInt(0));
+  connection.write(encoder.encodeText(new Message("Hello").add(protocolVersion).add(connection.getId())));
+  connection.setProtocolVersion(protocolVersion);
+  if (protocolVersion >= 1) {
+    appInstance.getPresenceService().sendSnapshot(connection);
+  }
+}
+
+/**
+ * Sends a message to a single client, encoded in the protocol version the client has negotiated.
+ *
+ * @param connection The connection of the receiving client.
+ * @param message The message to be sent to the client.
+ */
+public void writeToClient(Connection connection, Message message) {
+  //println("Sending to " + connection.getId() + ": " + message);
+  connection.write(encoder.encode(message, connection.getProtocolVersion()));
+}
+
+/**
+ * Sends a message to all clients, encoded in the protocol version each client has negotiated.
+ * Every encoding is only created once per message.
+ *
+ * @param message The message to be sent to the clients.
+ */
+public void writeToClients(Message message) {
+  writeToClients(message, Protocol.TEXT, Protocol.VERSION);
+}
+
+/**
+ * Sends a message to the clients whose negotiated protocol version lies within the given range,
+ * e.g. to send a message to legacy text clients only while newer clients receive a replacement.
+ * Every encoding is only created once per message.
  *
- * @param message The raw message to be sent to the server.
+ * @param message The message to be sent to the clients.
+ * @param minProtocolVersion The lowest protocol version of the receiving clients.
+ * @param maxProtocolVersion The highest protocol version of the receiving clients.
  */
-public void writeToClients(String message) {
+public void writeToClients(Message message, int minProtocolVersion, int maxProtocolVersion) {
+  writeToClients(message, connection -> connection.getProtocolVersion() >= minProtocolVersion && connection.getProtocolVersion() <= maxProtocolVersion);
+}
+
+/**
+ * Sends a message to the clients selected by a filter, e.g. to the clients that have subscribed to a score window.
+ * Every encoding is only created once per message.
+ *
+ * @param message The message to be sent to the clients.
+ * @param receivers Selects the connections of the receiving clients.
+ */
+public void writeToClients(Message message, Predicate<Connection> receivers) {
   //println("Sending: " + message);
-  Application.getInstance().getServer().write("!MSG"+message+"MSG?");
+  byte[] textFrame = null;
+  byte[] binaryFrame = null;
+  for (Connection connection : Application.getInstance().getNetworkEngine().getConnections()) {
+    if (!receivers.test(connection)) {
+      continue;
+    }
+    if (connection.getProtocolVersion() >= 1) {
+      if (binaryFrame == null) {
+        binaryFrame = encoder.encode(message, connection.getProtocolVersion());
+      }
+      connection.write(binaryFrame);
+    } else {
+      if (textFrame == null) {
+        textFrame = encoder.encodeText(message);
+      }
+      connection.write(textFrame);
+    }
+  }
 }
 
 /**
@@ -120,18 +351,29 @@ public void startGame() {
   canvas.clear();
   gameOver = false;
   timestampGamestart = System.currentTimeMillis();
-  writeToClients("Gamestart");
+  writeToClients(new Message("Gamestart"));
   canvas.allowDrawing(true);
 }
 
+/**
+ * Returns whether no game is running, i.e. before the first game and between the end of a game and the start of the next.
+ *
+ * @return true if no game is running, false while a word is being guessed.
+ */
+public boolean isGameOver() {
+  return gameOver;
+}
+
 /**
  * Ends the current game and stops canvas inputs. Attributes points to the drawing user based on duration of game
  * and a fixed amount to the guessing user. Updates the user stats and sends a message to the clients, telling them
  * who won the game. Updates the canvas to show the restart button.
+ * The current word is cleared, so later chat messages cannot end the game again.
  * @param username The username of the user that guessed the word correctly.
  */
 public void endGame(String username) {
   gameOver = true;
+  Application.getInstance().getWordList().setCurrentWord(null);
   canvas.allowDrawing(false);
   UserList userList = Application.getInstance().getUserList();
 
@@ -139,7 +381,7 @@ public void endGame(String username) {
   User winningUser = userList.getUserByUsername(username);
 
   if (winningUser != null) {
-    userList.awardPointsToUser(winningUser, POINTSFORWORDGUESS);
+    userList.awardPointsToUser(winningUser, POINTSFORWORDGUESS, ScoreJournal.GUESSED, timestampGamestart);
     // Notify user of points
     showMessage(POINTSFORWORDGUESS + " points awarded to the guessing user: " + winningUser.getUsername(), false);
   } else {
@@ -162,13 +404,13 @@ public void endGame(String username) {
       pointsForDrawingUser = Math.max(pointsForDrawingUser, MINPOINTSFORDRAWING); // Ensure minimum points
     }
 
-    userList.awardPointsToUser(drawingUser, pointsForDrawingUser);
+    userList.awardPointsToUser(drawingUser, pointsForDrawingUser, ScoreJournal.DREW, timestampGamestart);
     // Notify user of points
     showMessage("Game lasted " + currentGameDuration +" secconds. " + pointsForDrawingUser + " points awarded to the drawing user: " + drawingUser.getUsername(), false);
   } else {
     showMessage("Could not accredit drawing user with points, user not found", true);
   }
-  writeToClients("Winner;;;"+username);
+  writeToClients(new Message("Winner").add(username));
   canvas.getWordPicker().showRestartButton();
   login.updateUserStats();
 }
@@ -188,6 +430,17 @@ public void showMessage(String message, boolean isCritical) {
 public void showWordPicker() {
   canvas.getWordPicker().showSelection();
 }
+/**
+ * Scrolls the chat history with the mouse wheel while the mouse is over the chat.
+ *
+ * @param event the mouse wheel event.
+ */
+public void mouseWheel(MouseEvent event) {
+  if (chat != null && chat.isMouseOver()) {
+    chat.scroll(event.getCount());
+  }
+}
+
 /**
  * Handles control events triggered by the user interface, such as button clicks.
  * This method routes the actions based on the source of the event, identified by the controller's name.
@@ -0,0 +1,60 @@
+/**
+ * Base class of the self-tests of the server, which check behavior that is hard to provoke in a game, e.g. races with the background threads.
+ * Each test uses its own temporary files and database, so the data of the sketch is not touched.
+ * Run the server sketch with the argument "--test" to run all tests and print the failed checks.
+ */
+public abstract class SketchTest {
+  private int failures;
+
+  /**
+   * Runs the checks of the test.
+   */
+  public abstract void run();
+
+  /**
+   * Records the result of a check and prints it if it failed.
+   *
+   * @param condition the result of the check, true if it passed.
+   * @param description what is expected, e.g. "the old pack is left intact".
+   */
+  protected void check(boolean condition, String description) {
+    if (!condition) {
+      failures++;
+      println("  FAILED: " + description);
+    }
+  }
+
+  /**
+   * Records an unexpected exception as failed check.
+   *
+   * @param e the exception thrown by the test.
+   */
+  protected void fail(Exception e) {
+    failures++;
+    println("  FAILED with " + e);
+  }
+
+  /**
+   * Deletes a temporary directory of the test with its files. Files that are still in use are left behind.
+   *
+   * @param directory the directory to delete.
+   */
+  protected void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Returns the number of failed checks.
+   *
+   * @return the number of failed checks, 0 if the test passed.
+   */
+  public int getFailures() {
+    return failures;
+  }
+}
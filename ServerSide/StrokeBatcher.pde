@@ -0,0 +1,165 @@
+/**
+ * Collects the line segments drawn on the canvas and sends them to the clients as stroke streams.
+ * A stroke is opened with a "StrokeBegin" message carrying its ID, color, stroke size and start point.
+ * The following points are sent in "StrokePoints" messages as deltas to the previous point, which stay small
+ * and therefore need only one or two bytes each as zigzag varints. A "StrokeEnd" message closes the stroke.
+ * Points are batched per flush interval instead of sending one message per mouse movement.
+ * Clients that only understand the text protocol still receive one "Draw" message per segment.
+ */
+public class StrokeBatcher {
+  private int flushInterval;
+  private int maxPoints;
+  private int[] deltas;
+  private int pointCount;
+  private int nextStrokeId;
+  private int strokeId;
+  private int strokeColor;
+  private int strokeSize;
+  private int flushedX;
+  private int flushedY;
+  private int lastX;
+  private int lastY;
+  private long timestampFirstSegment;
+
+  /**
+   * Constructs a stroke batcher.
+   *
+   * @param flushInterval the maximum time in ms a segment is held back before it is sent.
+   * @param maxPoints the maximum number of points sent in one message.
+   */
+  public StrokeBatcher(int flushInterval, int maxPoints) {
+    this.flushInterval = flushInterval;
+    this.maxPoints = maxPoints;
+    this.deltas = new int[maxPoints * 2];
+    this.strokeId = -1;
+  }
+
+  /**
+   * Adds a drawn line segment to the current stroke. A new stroke is started if the segment does not continue
+   * the current stroke or uses a different color or stroke size.
+   *
+   * @param fromX the x-coordinate the segment starts at, relative to the canvas.
+   * @param fromY the y-coordinate the segment starts at, relative to the canvas.
+   * @param toX the x-coordinate the segment ends at, relative to the canvas.
+   * @param toY the y-coordinate the segment ends at, relative to the canvas.
+   * @param strokeColor the color of the segment.
+   * @param strokeSize the stroke size of the segment.
+   */
+  public void addSegment(int fromX, int fromY, int toX, int toY, int strokeColor, int strokeSize) {
+    if (strokeId >= 0 && (strokeColor != this.strokeColor || strokeSize != this.strokeSize || fromX != lastX || fromY != lastY)) {
+      endStroke();
+    }
+    if (strokeId < 0) {
+      beginStroke(fromX, fromY, strokeColor, strokeSize);
+    }
+    if (pointCount == maxPoints) {
+      flush();
+    }
+    if (pointCount == 0) {
+      timestampFirstSegment = currentTime();
+    }
+    deltas[pointCount * 2] = toX - lastX;
+    deltas[pointCount * 2 + 1] = toY - lastY;
+    pointCount++;
+    lastX = toX;
+    lastY = toY;
+  }
+
+  /**
+   * Sends the pending points if the oldest of them has been held back for the flush interval.
+   */
+  public void flushIfDue() {
+    if (pointCount > 0 && currentTime() - timestampFirstSegment >= flushInterval) {
+      flush();
+    }
+  }
+
+  /**
+   * Sends the pending points of the current stroke to all clients, regardless of their age.
+   */
+  public void flush() {
+    if (pointCount == 0) {
+      return;
+    }
+    Message points = new Message("StrokePoints").add(strokeId);
+    for (int i = 0; i < pointCount * 2; i++) {
+      points.add(deltas[i]);
+    }
+    send(points, 1, Protocol.VERSION);
+
+    // legacy clients only understand single segments with absolute coordinates
+    int x = flushedX;
+    int y = flushedY;
+    for (int i = 0; i < pointCount; i++) {
+      int nextX = x + deltas[i * 2];
+      int nextY = y + deltas[i * 2 + 1];
+      send(new Message("Draw").add(x).add(y).add(nextX).add(nextY).add(strokeColor).add(strokeSize), Protocol.TEXT, Protocol.TEXT);
+      x = nextX;
+      y = nextY;
+    }
+    flushedX = lastX;
+    flushedY = lastY;
+    pointCount = 0;
+  }
+
+  /**
+   * Sends the pending points and closes the current stroke, e.g. because the mouse was released.
+   */
+  public void endStroke() {
+    if (strokeId < 0) {
+      return;
+    }
+    flush();
+    send(new Message("StrokeEnd").add(strokeId), 1, Protocol.VERSION);
+    strokeId = -1;
+  }
+
+  /**
+   * Discards the current stroke without sending it, e.g. because the canvas is cleared.
+   */
+  public void clear() {
+    pointCount = 0;
+    strokeId = -1;
+  }
+
+  /**
+   * Opens a new stroke and announces it to the clients.
+   *
+   * @param x the x-coordinate the stroke starts at, relative to the canvas.
+   * @param y the y-coordinate the stroke starts at, relative to the canvas.
+   * @param strokeColor the color of the stroke.
+   * @param strokeSize the stroke size of the stroke.
+   */
+  private void beginStroke(int x, int y, int strokeColor, int strokeSize) {
+    strokeId = nextStrokeId++;
+    this.strokeColor = strokeColor;
+    this.strokeSize = strokeSize;
+    flushedX = x;
+    flushedY = y;
+    lastX = x;
+    lastY = y;
+    send(new Message("StrokeBegin").add(strokeId).add(strokeColor).add(strokeSize).add(x).add(y), 1, Protocol.VERSION);
+  }
+
+  /**
+   * Sends a message to the clients within the given protocol version range.
+   * Overridden by the stroke benchmark to measure the traffic instead of sending it.
+   *
+   * @param message the message to send.
+   * @param minProtocolVersion the lowest protocol version of the receiving clients.
+   * @param maxProtocolVersion the highest protocol version of the receiving clients.
+   */
+  protected void send(Message message, int minProtocolVersion, int maxProtocolVersion) {
+    Application.getInstance().getServerSide().writeToClients(message, minProtocolVersion, maxProtocolVersion);
+  }
+
+  /**
+   * Returns the current time used for the flush interval.
+   * Overridden by the stroke benchmark to replay recorded timestamps.
+   *
+   * @return the current time in ms.
+   */
+  protected long currentTime() {
+    return System.currentTimeMillis();
+  }
+}
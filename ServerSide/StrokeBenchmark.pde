@@ -0,0 +1,101 @@
+import java.util.Arrays;
+
+/**
+ * Replays recorded mouse traces through the {@link StrokeBatcher} and compares the traffic of the stroke streams
+ * with the single segment "Draw" messages in text and binary framing.
+ * A trace is a CSV file in data/traces with one sample per frame, formatted as "millis,x,y,pressed".
+ * Run the server sketch with the argument "--benchmark" to print the results.
+ */
+public class StrokeBenchmark {
+  // same settings as the canvas
+  private final int FLUSHINTERVAL = 50;
+  private final int MAXPOINTS = 256;
+  private final int STROKECOLOR = 0xFF000000;
+  private final int STROKESIZE = 5;
+  private MessageEncoder encoder = new MessageEncoder();
+
+  /**
+   * Replays all traces in a directory and prints the bytes per second of drawing for each format.
+   *
+   * @param directory the directory holding the trace files.
+   */
+  public void run(File directory) {
+    File[] traces = directory.listFiles();
+    if (traces == null || traces.length == 0) {
+      println("No mouse traces found in " + directory);
+      return;
+    }
+    Arrays.sort(traces);
+    println("trace                  segments  seconds   Draw text B/s  Draw binary B/s  stroke stream B/s");
+    for (File trace : traces) {
+      if (trace.getName().endsWith(".csv")) {
+        replay(trace);
+      }
+    }
+  }
+
+  /**
+   * Replays a single trace. Consecutive pressed samples at different positions form a segment,
+   * a released sample ends the stroke, just like the canvas does with the mouse.
+   *
+   * @param trace the trace file.
+   */
+  private void replay(File trace) {
+    String[] lines = loadStrings(trace.getAbsolutePath());
+    final long[] bytes = new long[3]; // Draw text, Draw binary, stroke stream
+    final long[] now = new long[1];
+    StrokeBatcher batcher = new StrokeBatcher(FLUSHINTERVAL, MAXPOINTS) {
+      @Override
+        protected void send(Message message, int minProtocolVersion, int maxProtocolVersion) {
+        if (minProtocolVersion >= 1) {
+          bytes[2] += encoder.encodeBinary(message).length;
+        } else {
+          bytes[0] += encoder.encodeText(message).length;
+          bytes[1] += encoder.encodeBinary(message).length;
+        }
+      }
+
+      @Override
+        protected long currentTime() {
+        return now[0];
+      }
+    };
+
+    int segments = 0;
+    long firstTimestamp = -1;
+    boolean previousPressed = false;
+    int previousX = 0;
+    int previousY = 0;
+    for (int i = 1; i < lines.length; i++) {
+      String[] sample = split(lines[i].trim(), ',');
+      if (sample.length < 4) {
+        continue;
+      }
+      now[0] = Long.parseLong(sample[0]);
+      int x = Integer.parseInt(sample[1]);
+      int y = Integer.parseInt(sample[2]);
+      boolean pressed = sample[3].equals("1");
+      if (firstTimestamp < 0) {
+        firstTimestamp = now[0];
+      }
+
+      if (pressed && previousPressed && (x != previousX || y != previousY)) {
+        batcher.addSegment(previousX, previousY, x, y, STROKECOLOR, STROKESIZE);
+        segments++;
+      }
+      if (pressed) {
+        batcher.flushIfDue();
+      } else {
+        batcher.endStroke();
+      }
+      previousPressed = pressed;
+      previousX = x;
+      previousY = y;
+    }
+    batcher.endStroke();
+
+    double seconds = Math.max(now[0] - firstTimestamp, 1) / 1000.0;
+    println(String.format("%-22s %9d %8.1f %15.0f %16.0f %18.0f", trace.getName(), segments, seconds,
+      bytes[0] / seconds, bytes[1] / seconds, bytes[2] / seconds));
+  }
+}
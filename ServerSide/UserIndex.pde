@@ -0,0 +1,113 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded cache of the users loaded from the database, indexed by username, with an additional case-folded index
+ * for lookups that ignore case. Both lookups are hash lookups, their cost does not grow with the number of users.
+ * When the cache is full, the least recently used user is evicted, except for the pinned user.
+ */
+public class UserIndex {
+  private int capacity;
+  private LinkedHashMap<String, User> usersByName;
+  private HashMap<String, User> usersByFoldedName;
+  private User pinnedUser;
+
+  /**
+   * Constructs an empty index.
+   *
+   * @param capacity the maximum number of cached users.
+   */
+  public UserIndex(int capacity) {
+    this.capacity = capacity;
+    usersByFoldedName = new HashMap<>();
+    // access order, so that the eldest entry is the least recently used user
+    usersByName = new LinkedHashMap<String, User>(16, 0.75f, true) {
+      @Override
+        protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+        if (size() <= UserIndex.this.capacity) {
+          return false;
+        }
+        if (eldest.getValue() == pinnedUser) {
+          // move the pinned user to the most recently used end and evict the next user instead
+          get(eldest.getKey());
+          eldest = entrySet().iterator().next();
+          usersByFoldedName.remove(fold(eldest.getKey()), eldest.getValue());
+          remove(eldest.getKey());
+          return false;
+        }
+        usersByFoldedName.remove(fold(eldest.getKey()), eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Adds a user to the index. If several usernames only differ in case,
+   * the case-folded index keeps the user that was added first.
+   *
+   * @param user the user to add.
+   */
+  public void add(User user) {
+    usersByFoldedName.putIfAbsent(fold(user.getUsername()), user);
+    usersByName.put(user.getUsername(), user);
+  }
+
+  /**
+   * Retrieves a user by the exact username.
+   *
+   * @param username the username of the user.
+   * @return the user, or null if the user is not cached.
+   */
+  public User get(String username) {
+    return usersByName.get(username);
+  }
+
+  /**
+   * Retrieves a user by username, ignoring case.
+   *
+   * @param username the username of the user in any case.
+   * @return the user, or null if the user is not cached.
+   */
+  public User getIgnoreCase(String username) {
+    return usersByFoldedName.get(fold(username));
+  }
+
+  /**
+   * Checks whether a user with the exact username is cached.
+   *
+   * @param username the username to check.
+   * @return true if the username is indexed.
+   */
+  public boolean contains(String username) {
+    return usersByName.containsKey(username);
+  }
+
+  /**
+   * Keeps a user in the cache regardless of how long it has not been used, e.g. the user playing on the server.
+   *
+   * @param user the user to keep, or null to release the pinned user.
+   */
+  public void pin(User user) {
+    pinnedUser = user;
+  }
+
+  /**
+   * Returns the number of cached users.
+   *
+   * @return the number of users.
+   */
+  public int size() {
+    return usersByName.size();
+  }
+
+  /**
+   * Folds a username to the form used by the case-insensitive index.
+   *
+   * @param username the username to fold.
+   * @return the folded username.
+   */
+  private String fold(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
@@ -1,144 +1,428 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.nio.charset.StandardCharsets;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * Manages a list of users including operations to add, retrieve, and update users in the system
+ * Manages the users including operations to add, retrieve, and update users in the system
  * and their corresponding data in the database.
+ * Users are loaded lazily from the database on their first lookup and kept in a bounded cache,
+ * so the startup time does not depend on the number of registered users. The ranks are answered by a rank index,
+ * which is filled in the background, until then they are counted by the database.
+ * Changed scores are appended to a {@link ScoreJournal} and written to the database in the background by a {@link ScorePersister}.
+ * Changes that were journaled but not written before the server stopped are replayed on startup.
+ * Besides the total scores, the points awarded within rolling time windows are ranked by {@link ScoreWindow}s,
+ * the daily and weekly windows are restored from the journal on startup.
+ * Passwords are hashed by a {@link PasswordHasher} off the game thread, so logins and registrations are answered by callbacks.
  */
 public class UserList {
-  private ArrayList<User> users;
-  private SQLite db;
+  private UserIndex users;
+  private Database db;
   private User currentUser;
+  private RankIndex rankIndex;
+  private RankIndexLoader rankIndexLoader;
+  private boolean rankIndexComplete;
+  private Leaderboard leaderboard;
+  private ScorePersister scorePersister;
+  private ScoreJournal scoreJournal;
+  private ScoreWindow[] scoreWindows;
+  private PasswordHasher passwordHasher;
+  private final int LEADERBOARDSIZE = 10;
+  private final int USERCACHESIZE = 1024;
+  private final int RANKPAGESPERFRAME = 2;
+  private final long SCOREFLUSHINTERVAL = 1000;
+  private final int SCOREFLUSHBATCHSIZE = 64;
+  private final int HASHERTHREADS = 2;
+  private final int HASHERQUEUECAPACITY = 256;
+  private final long HOUR = 60 * 60 * 1000;
+  private final long WEEK = 7 * 24 * HOUR;
+  private final String USERCOLUMNS = "username, password, userCreatedTimestamp, score";
 
   /**
-   * Initializes a new UserList and loads existing users from the database.
+   * Initializes a new UserList without loading any users, only the best users are loaded for the leaderboard.
+   * Replays the score changes of the journal that have not been written to the database yet.
+   * Starts filling the rank index and writing changed scores in the background.
    *
-   * @param dataSource the database source path.
+   * @param db the shared database connection.
+   * @param journalDirectory the directory of the score journal.
    */
-  public UserList(String dataSource) {
-    users = new ArrayList();
-    db = new SQLite(Application.getInstance().getServerSide(), dataSource);
-    loadUsersFromDB();
+  public UserList(Database db, File journalDirectory) {
+    users = new UserIndex(USERCACHESIZE);
+    this.db = db;
+    rankIndex = new RankIndex();
+    prepareDB();
+    scoreJournal = new ScoreJournal(journalDirectory.getAbsolutePath());
+    replayJournal();
+    scoreWindows = new ScoreWindow[] {
+      new ScoreWindow("today", HOUR, 24),
+      new ScoreWindow("this week", 6 * HOUR, 28),
+      new ScoreWindow("this session", 0, 0)
+    };
+    restoreScoreWindows();
+    // the persister is created first, because the loaded users look up their pending scores
+    scorePersister = new ScorePersister(db.getPath(), SCOREFLUSHINTERVAL, SCOREFLUSHBATCHSIZE, scoreJournal);
+    scorePersister.start();
+    leaderboard = new Leaderboard(LEADERBOARDSIZE, amount -> queryUsersWithHighestScores(amount));
+    rankIndexLoader = new RankIndexLoader(db.getPath());
+    rankIndexLoader.start();
+    passwordHasher = new PasswordHasher(HASHERTHREADS, HASHERQUEUECAPACITY);
   }
 
+  /**
+   * Writes the scores that have not been written yet to the database. Should be called before the application exits.
+   */
+  public void close() {
+    passwordHasher.shutdown();
+    scorePersister.stop();
+    scoreJournal.close();
+  }
+
+  /**
+   * Runs the callbacks of finished password hashes, expires the points that fell out of the score windows
+   * and applies the scores loaded in the background to the rank index, a few pages per call. Should be called once per frame.
+   */
+  public void update() {
+    passwordHasher.update();
+    long now = System.currentTimeMillis();
+    for (ScoreWindow scoreWindow : scoreWindows) {
+      scoreWindow.update(now);
+    }
+    if (!rankIndexComplete) {
+      rankIndexComplete = rankIndexLoader.applyPages(rankIndex, RANKPAGESPERFRAME);
+    }
+  }
+
+
+  /**
+   * Creates the index used to query the best users and the table holding the checkpoint of the score journal,
+   * if they do not exist yet. Creates the temporary table of the connection, into which the scores that have not been
+   * written yet are copied to count the ranks.
+   */
+  private void prepareDB() {
+    try {
+      db.execute("CREATE INDEX IF NOT EXISTS usersScoreIndex ON users (score DESC, username)");
+      db.execute("CREATE TABLE IF NOT EXISTS journalCheckpoint (id INTEGER PRIMARY KEY CHECK (id = 0), sequence INTEGER NOT NULL)");
+      db.execute("INSERT OR IGNORE INTO journalCheckpoint (id, sequence) VALUES (0, 0)");
+      db.execute("CREATE TEMP TABLE IF NOT EXISTS pendingScores (username TEXT PRIMARY KEY, score INTEGER NOT NULL)");
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+  }
 
   /**
-   * Loads user data from the database and populates the users list.
+   * Writes the score changes of the journal after the checkpoint to the database in one transaction
+   * and advances the checkpoint. Runs before any user is loaded, so that all users are loaded with their latest score.
    */
-  private void loadUsersFromDB() {
+  private void replayJournal() {
     try {
-      if ( db.connect() ) {
-        db.query( "SELECT * FROM users" );
-        while (db.next()) {
-          String username = db.getString("username");
-          String securePassword = db.getString("password");
-          long timeCreated = db.getLong("userCreatedTimestamp");
-          int score = db.getInt("score");
-          users.add(new User(username, securePassword, timeCreated, score));
+      long checkpoint = 0;
+      try (ResultSet result = db.prepare("SELECT sequence FROM journalCheckpoint WHERE id = 0").executeQuery()) {
+        if (result.next()) {
+          checkpoint = result.getLong(1);
         }
       }
+      ArrayList<ScoreJournal.Entry> entries = scoreJournal.open(checkpoint);
+      if (entries.isEmpty()) {
+        return;
+      }
+      java.sql.Connection connection = db.getConnection();
+      connection.setAutoCommit(false);
+      try {
+        PreparedStatement statement = db.prepare("UPDATE users SET score = ? WHERE username = ?");
+        for (ScoreJournal.Entry entry : entries) {
+          statement.setInt(1, entry.getScore());
+          statement.setString(2, entry.getUsername());
+          statement.executeUpdate();
+        }
+        checkpoint = entries.get(entries.size() - 1).getSequence();
+        PreparedStatement checkpointStatement = db.prepare("UPDATE journalCheckpoint SET sequence = ? WHERE id = 0");
+        checkpointStatement.setLong(1, checkpoint);
+        checkpointStatement.executeUpdate();
+        connection.commit();
+        println("Replayed " + entries.size() + " score changes from the journal.");
+      }
+      catch (SQLException sqle) {
+        connection.rollback();
+        throw sqle;
+      }
+      finally {
+        connection.setAutoCommit(true);
+      }
+      scoreJournal.checkpoint(checkpoint);
     }
-    catch (Exception e) {
-      e.printStackTrace();
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
     }
   }
 
   /**
-   * Adds a user to the system and database. The cleartext password is salted with the timestamp
-   * and hashed before being stored in the user object and the database.
-   * Throws a DuplicateUserExecption if the user already exists.
+   * Adds the points awarded within the last week, as recorded by the score journal, to the daily and weekly windows.
+   * The session window starts empty.
+   */
+  private void restoreScoreWindows() {
+    long now = System.currentTimeMillis();
+    try {
+      for (ScoreJournal.Entry entry : scoreJournal.readSince(now - WEEK)) {
+        scoreWindows[0].award(entry.getUsername(), entry.getPoints(), entry.getTimestamp());
+        scoreWindows[1].award(entry.getUsername(), entry.getPoints(), entry.getTimestamp());
+      }
+    }
+    catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+    scoreWindows[0].update(now);
+    scoreWindows[1].update(now);
+  }
+
+  /**
+   * Loads a single user from the database. Users that are already cached are returned from the cache,
+   * so that there is only one object per user.
+   *
+   * @param query the query selecting the user columns, with the username as only parameter.
+   * @param username the username to look up.
+   * @return the user, or null if no user was found.
+   */
+  private User loadUserFromDB(String query, String username) {
+    try {
+      PreparedStatement statement = db.prepare(query);
+      statement.setString(1, username);
+      try (ResultSet result = statement.executeQuery()) {
+        if (result.next()) {
+          return cacheUser(result);
+        }
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Queries the users with the highest scores, using the score index of the database.
+   *
+   * @param amount the number of users to query.
+   * @return the best users in rank order.
+   */
+  private User[] queryUsersWithHighestScores(int amount) {
+    ArrayList<User> highestScoringUsers = new ArrayList<>();
+    try {
+      PreparedStatement statement = db.prepare("SELECT " + USERCOLUMNS + " FROM users ORDER BY score DESC, username LIMIT ?");
+      statement.setInt(1, amount);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          highestScoringUsers.add(cacheUser(result));
+        }
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+    return highestScoringUsers.toArray(new User[0]);
+  }
+
+  /**
+   * Returns the cached user of the current row, or creates and caches the user if it is not cached yet.
+   * A score that has not been written to the database yet replaces the score of the row.
+   *
+   * @param result the result set positioned on a row with the user columns.
+   * @return the user.
+   * @throws SQLException if the row cannot be read.
+   */
+  private User cacheUser(ResultSet result) throws SQLException {
+    String username = result.getString("username");
+    User user = users.get(username);
+    if (user == null) {
+      Integer pendingScore = scorePersister.getPendingScore(username);
+      int score = pendingScore != null ? pendingScore : result.getInt("score");
+      user = new User(username, result.getString("password"), result.getLong("userCreatedTimestamp"), score);
+      users.add(user);
+    }
+    return user;
+  }
+
+  /**
+   * Registers a new user. The cleartext password is salted with the timestamp and hashed off the game thread
+   * before the user is stored in the user list and the database.
    *
    * @param username the user's username.
    * @param password the user's password.
    * @param timestamp the creation timestamp for the user.
-   * @throws DuplicateUserException if the username already exists.
+   * @param callback receives true on the game thread if the user was registered, false if the username already exists
+   *        or the password could not be hashed.
    */
-  private void addUser (String username, String password, long timestamp) throws DuplicateUserException {
-    String saltedPassword = password + timestamp;
-    String saltedHashedPassword;
-    User user = null;
+  public void registerUser(String username, String password, long timestamp, Consumer<Boolean> callback) {
+    if (isUserRegistered(username)) {
+      callback.accept(false);
+      return;
+    }
+    passwordHasher.hash(password, timestamp, saltedHashedPassword -> {
+      if (saltedHashedPassword == null) {
+        callback.accept(false);
+        return;
+      }
+      try {
+        addUser(new User(username, saltedHashedPassword, timestamp));
+        callback.accept(true);
+      }
+      //the same username may have been registered while the password was hashed
+      catch(DuplicateUserException due) {
+        due.printStackTrace();
+        callback.accept(false);
+      }
+    }
+    );
+  }
 
+  /**
+   * Adds a user with an already hashed password to the system and database.
+   * Throws a DuplicateUserExecption if the user already exists.
+   *
+   * @param user the user to add.
+   * @throws DuplicateUserException if the username already exists.
+   */
+  private void addUser(User user) throws DuplicateUserException {
+    if (isUserRegistered(user.getUsername())) {
+      throw new DuplicateUserException("User '" + user.getUsername() + "' already exists.");
+    }
+    users.add(user);
+    rankIndex.put(user.getUsername(), 0);
+    leaderboard.scoreChanged(user, 0);
     try {
-      MessageDigest digest = MessageDigest.getInstance("SHA3-256");
-      byte[] hashbytes = digest.digest(saltedPassword.getBytes(StandardCharsets.UTF_8));
-      saltedHashedPassword = bytesToHex(hashbytes);
-      user = new User(username, saltedHashedPassword, timestamp);
+      PreparedStatement statement = db.prepare("INSERT INTO users (username, password, userCreatedTimestamp, score) VALUES (?, ?, ?, 0)");
+      statement.setString(1, user.getUsername());
+      statement.setString(2, user.getSecurePassword());
+      statement.setLong(3, user.getTimeCreated());
+      statement.executeUpdate();
     }
-    catch(NoSuchAlgorithmException nsae) {
-      nsae.printStackTrace();
-    }
-    if (user!=null) {
-      if (isUserRegistered(user.getUsername())) {
-        throw new DuplicateUserException("User '" + user.getUsername() + "' already exists.");
-      } else {
-        users.add(user);
-        try {
-          if ( db.connect() ) {
-            db.query("INSERT INTO users (username, password, userCreatedTimestamp, score) " +
-              "VALUES ('" + user.getUsername() + "', '" + user.getSecurePassword() + "', '" + user.getTimeCreated() + "', 0)");
-          }
-        }
-        //this is necessary to catch an sqlexception. sqlexception is not thrown by sqlite lib, so general exception needs to be caught.
-        //problems could be write errors, db connection failure, etc.
-        catch(Exception e) {
-          e.printStackTrace();
-        }
-      }
+    //problems could be write errors, db connection failure, etc.
+    catch(SQLException sqle) {
+      sqle.printStackTrace();
     }
   }
 
   /**
    * Retrieves an array of users sorted by highest scores.
+   * Up to the size of the leaderboard, the users are taken from the incrementally updated leaderboard,
+   * otherwise they are queried from the database.
    *
    * @param amount the number of top users to retrieve.
    * @return an array of top-scoring users.
    */
   public User[] getUsersWithHighestScores(int amount) {
-    // Sort users by score in descending order
-    Collections.sort(users, Comparator.comparing(User::getScore).reversed());
-
-    //make sure not to try and return more users than the users list contains
-    int returnSize = Math.min(amount, users.size());
-    User[] highestScoringUsers = new User[returnSize];
-    for (int i=0; i<returnSize; i++) {
-      highestScoringUsers[i] = users.get(i);
+    if (amount <= leaderboard.getCapacity()) {
+      return leaderboard.getTopUsers(amount);
     }
-    return highestScoringUsers;
+    return queryUsersWithHighestScores(amount);
   }
 
   /**
-   * Returns the ranking position of a user based on their score.
+   * Returns the leaderboard of the points awarded within a time window.
+   *
+   * @param index the index of the window: 0 for today, 1 for this week, 2 for this session.
+   * @return the score window.
+   */
+  public ScoreWindow getScoreWindow(int index) {
+    return scoreWindows[index];
+  }
+
+  /**
+   * Returns the number of score windows.
+   *
+   * @return the number of windows.
+   */
+  public int getScoreWindowCount() {
+    return scoreWindows.length;
+  }
+
+  /**
+   * Returns the leaderboard of the best users, which is updated whenever a score changes.
+   *
+   * @return the leaderboard.
+   */
+  public Leaderboard getLeaderboard() {
+    return leaderboard;
+  }
+
+  /**
+   * Returns the ranking position of a user based on their score, looked up in the rank index in O(log n).
+   * Until the rank index is complete, the users with a better rank are counted by the database.
+   * The scores that the {@link ScorePersister} has not written yet are copied into a temporary table and replace
+   * the scores of these users in the count, so the count sees the same scores as the rank index.
+   * Users with equal scores are ranked by username.
    *
    * @param user the user whose ranking is to be determined.
    * @return the ranking position as an integer. Returns -1 if the user was not found.
    */
   public int getCurrentUserScorePlacement(User user) {
-    // Sort users by score in descending order
-    Collections.sort(users, Comparator.comparing(User::getScore).reversed());
-
-    // Find the index of the specified user in the sorted list
-    for (int i = 0; i < users.size(); i++) {
-      if (users.get(i).equals(user)) {
-        return i + 1; // Return rank (1-based index)
+    if (rankIndexComplete) {
+      return rankIndex.getRank(user.getUsername());
+    }
+    try {
+      copyPendingScores();
+      PreparedStatement statement = db.prepare("SELECT "
+        + "(SELECT COUNT(*) FROM users WHERE (score > ? OR (score = ? AND username < ?)) AND username NOT IN (SELECT username FROM pendingScores)) + "
+        + "(SELECT COUNT(*) FROM pendingScores WHERE score > ? OR (score = ? AND username < ?))");
+      for (int i = 0; i < 2; i++) {
+        statement.setInt(3 * i + 1, user.getScore());
+        statement.setInt(3 * i + 2, user.getScore());
+        statement.setString(3 * i + 3, user.getUsername());
       }
+      try (ResultSet result = statement.executeQuery()) {
+        return result.next() ? result.getInt(1) + 1 : -1;
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+      return -1;
     }
+  }
 
-    return -1; // User not found in the list, return -1
+  /**
+   * Replaces the content of the temporary table of pending scores with the scores the {@link ScorePersister} has not written yet.
+   *
+   * @throws SQLException if the table cannot be written.
+   */
+  private void copyPendingScores() throws SQLException {
+    db.execute("DELETE FROM pendingScores");
+    HashMap<String, Integer> pendingScores = scorePersister.getPendingScores();
+    if (pendingScores.isEmpty()) {
+      return;
+    }
+    PreparedStatement statement = db.prepare("INSERT INTO pendingScores (username, score) VALUES (?, ?)");
+    for (Map.Entry<String, Integer> pendingScore : pendingScores.entrySet()) {
+      statement.setString(1, pendingScore.getKey());
+      statement.setInt(2, pendingScore.getValue());
+      statement.addBatch();
+    }
+    statement.executeBatch();
   }
 
   /**
-   * Awards points to a user and updates their score in the database.
+   * Awards points to a user. The points are added to the score windows, the change is appended to the score journal
+   * and written to the database in the background.
    *
    * @param user the user to award points to.
    * @param points the number of points to award.
+   * @param reason the reason of the award, {@link ScoreJournal#GUESSED} or {@link ScoreJournal#DREW}.
+   * @param round the start time of the round the points are awarded in.
    */
-  public void awardPointsToUser(User user, int points) {
-    user.setScore(user.getScore() + points);
-    updateUserinDB(user);
+  public void awardPointsToUser(User user, int points, byte reason, long round) {
+    int previousScore = user.getScore();
+    user.setScore(previousScore + points);
+    rankIndex.put(user.getUsername(), user.getScore());
+    leaderboard.scoreChanged(user, previousScore);
+    long now = System.currentTimeMillis();
+    for (ScoreWindow scoreWindow : scoreWindows) {
+      scoreWindow.award(user.getUsername(), points, now);
+    }
+    long sequence = scoreJournal.append(user.getUsername(), points, user.getScore(), reason, round);
+    scorePersister.scoreChanged(user.getUsername(), user.getScore(), sequence);
   }
 
   /**
@@ -148,78 +432,69 @@ public class UserList {
    * @return true if the username is already registered, false otherwise.
    */
   public boolean isUserRegistered(String username) {
-    for (User user : users) {
-      if (user.getUsername().equals(username)) {
-        return true; // User found
-      }
-    }
-    return false; // User not found
+    return getUserByUsername(username) != null;
   }
 
   /**
-   * Retrieves a user by their username.
+   * Retrieves a user by their username. Users that are not cached are loaded from the database.
    *
    * @param username the username of the user to retrieve.
    * @return the User object if found, null otherwise.
    */
   public User getUserByUsername(String username) {
-    for (User user : users) {
-      if (user.getUsername().equals(username)) {
-        return user; // User found
-      }
+    User user = users.get(username);
+    if (user == null) {
+      user = loadUserFromDB("SELECT " + USERCOLUMNS + " FROM users WHERE username = ?", username);
+    }
+    return user;
+  }
+
+  /**
+   * Retrieves a user by their username, ignoring case. Users that are not cached are loaded from the database.
+   *
+   * @param username the username of the user to retrieve, in any case.
+   * @return the User object if found, null otherwise.
+   */
+  public User getUserByUsernameIgnoreCase(String username) {
+    User user = users.getIgnoreCase(username);
+    if (user == null) {
+      user = loadUserFromDB("SELECT " + USERCOLUMNS + " FROM users WHERE username = ? COLLATE NOCASE LIMIT 1", username);
     }
-    return null; // User not found
+    return user;
   }
 
   /**
-   * Validates a user's login credentials.
+   * Validates a user's login credentials. The user is looked up on the game thread,
+   * the password is hashed off the game thread.
    *
    * @param username the username to validate.
    * @param password the cleartext password to validate.
-   * @return the User object if credentials are valid, null otherwise.
+   * @param callback receives the User object on the game thread if the credentials are valid, null otherwise.
    */
-  public User getValidatedUser(String username, String password) {
-    User user;
-    //if user is found
-    if ((user = getUserByUsername(username)) != null) {
-      String saltedPassword = password + user.getTimeCreated();
-      String saltedHashedPassword;
-      try {
-        MessageDigest digest = MessageDigest.getInstance("SHA3-256");
-        byte[] hashbytes = digest.digest(saltedPassword.getBytes(StandardCharsets.UTF_8));
-        saltedHashedPassword = bytesToHex(hashbytes);
-        //if password is the same as in found user object
-        if (user.getSecurePassword().equals(saltedHashedPassword)) {
-          return user;
-        } else {
-          return null;
-        }
-      }//if program runs into problem, user credential is deemed invalid and null is returned
-      catch(NoSuchAlgorithmException nsae) {
-        nsae.printStackTrace();
-        return null;
+  public void validateUser(String username, String password, Consumer<User> callback) {
+    User user = getUserByUsername(username);
+    if (user == null) {
+      callback.accept(null);
+      return;
+    }
+    passwordHasher.hash(password, user.getTimeCreated(), saltedHashedPassword -> {
+      //if password could not be hashed, user credential is deemed invalid and null is returned
+      if (saltedHashedPassword != null && user.getSecurePassword().equals(saltedHashedPassword)) {
+        callback.accept(user);
+      } else {
+        callback.accept(null);
       }
-    } else {
-      return null;
     }
+    );
   }
 
   /**
-   * Converts a byte array to a hexadecimal string.
-   * Source:  https://www.baeldung.com/sha-256-hashing-java
-   * @param hash the byte array to convert.
-   * @return the corresponding hexadecimal string.
+   * Returns the hasher of the passwords, e.g. to report its queue depth and latency.
+   *
+   * @return the password hasher.
    */
-  private String bytesToHex(byte[] hash) {
-    StringBuilder hexString = new StringBuilder(2 * hash.length);
-    for (int i = 0; i < hash.length; i++) {
-      String hex = Integer.toHexString(0xff & hash[i]);
-      if (hex.length() == 1) {
-        hexString.append('0');
-      }
-      hexString.append(hex);
-    }
-    return hexString.toString();
+  public PasswordHasher getPasswordHasher() {
+    return passwordHasher;
   }
 
   /**
@@ -229,6 +504,7 @@ public class UserList {
    */
   public void setCurrentUser(User user) {
     currentUser = user;
+    users.pin(user);
   }
 
   /**
@@ -239,20 +515,4 @@ public class UserList {
   public User getCurrentUser() {
     return currentUser;
   }
-
-  /**
-   * Updates user information in the database, specifically the user's password and score.
-   * 
-   * @param user the user whose information is to be updated.
-   */
-  private void updateUserinDB(User user) {
-    try {
-      if (db.connect() ) {
-        db.query("UPDATE users SET password = '"+user.getSecurePassword()+"', score = "+user.getScore()+" WHERE username = '"+user.getUsername()+"';");
-      }
-    }
-    catch (Exception e) {
-      e.printStackTrace();
-    }
-  }
 }
@@ -0,0 +1,110 @@
+import java.util.Random;
+
+/**
+ * Measures the cost of looking up users by username in the {@link UserIndex} for growing numbers of users,
+ * compared with the linear scan over a list that was used before.
+ * Each measurement is repeated after a warm-up, so that the JIT compiler has optimized the lookup.
+ * Run the server sketch with the argument "--benchmark" to print the results.
+ */
+public class UserLookupBenchmark {
+  private final int[] USERCOUNTS = {1000, 10000, 100000, 1000000};
+  private final int MAXSCANUSERS = 100000;
+  private final int LOOKUPS = 1000000;
+  private final int SCANLOOKUPS = 2000;
+  private final int QUERIES = 4096;
+  private Random random = new Random(42);
+  private long blackhole;
+
+  /**
+   * Runs the benchmark for all user counts and prints the average time per lookup.
+   */
+  public void run() {
+    println("users      index ns/lookup  ignore case ns/lookup  list scan ns/lookup");
+    for (int userCount : USERCOUNTS) {
+      try {
+        measure(userCount);
+      }
+      catch (OutOfMemoryError oome) {
+        println(userCount + " users do not fit into the heap, increase the maximum memory of the sketch.");
+        break;
+      }
+    }
+  }
+
+  /**
+   * Builds an index with the given number of users and measures the lookups.
+   *
+   * @param userCount the number of users.
+   */
+  private void measure(int userCount) {
+    UserIndex index = new UserIndex(userCount);
+    ArrayList<User> list = new ArrayList<>();
+    for (int i = 0; i < userCount; i++) {
+      User user = new User("player" + i, "", 0);
+      index.add(user);
+      if (userCount <= MAXSCANUSERS) {
+        list.add(user);
+      }
+    }
+    // usernames arrive as new strings from the network, so their hash code is not cached yet
+    String[] queries = new String[QUERIES];
+    String[] upperCaseQueries = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      queries[i] = "player" + random.nextInt(userCount);
+      upperCaseQueries[i] = queries[i].toUpperCase();
+    }
+
+    double indexTime = 0;
+    double ignoreCaseTime = 0;
+    for (int round = 0; round < 3; round++) {
+      indexTime = timeIndex(index, queries, false);
+      ignoreCaseTime = timeIndex(index, upperCaseQueries, true);
+    }
+    String scanTime = "-";
+    if (userCount <= MAXSCANUSERS) {
+      timeScan(list, queries);
+      scanTime = String.format("%.0f", timeScan(list, queries));
+    }
+    println(String.format("%-10d %16.1f %22.1f %20s", userCount, indexTime, ignoreCaseTime, scanTime));
+  }
+
+  /**
+   * Measures lookups in the index.
+   *
+   * @param index the index to look up users in.
+   * @param queries the usernames to look up.
+   * @param ignoreCase whether to use the case-folded lookup.
+   * @return the average time per lookup in ns.
+   */
+  private double timeIndex(UserIndex index, String[] queries, boolean ignoreCase) {
+    long start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      // copy the query so that every lookup has to hash the username
+      String username = new String(queries[i % QUERIES]);
+      User user = ignoreCase ? index.getIgnoreCase(username) : index.get(username);
+      blackhole += user.getTimeCreated();
+    }
+    return (System.nanoTime() - start) / (double) LOOKUPS;
+  }
+
+  /**
+   * Measures lookups by scanning a list, like UserList did before the index.
+   *
+   * @param list the list of users.
+   * @param queries the usernames to look up.
+   * @return the average time per lookup in ns.
+   */
+  private double timeScan(ArrayList<User> list, String[] queries) {
+    long start = System.nanoTime();
+    for (int i = 0; i < SCANLOOKUPS; i++) {
+      String username = queries[i % QUERIES];
+      for (User user : list) {
+        if (user.getUsername().equals(username)) {
+          blackhole += user.getTimeCreated();
+          break;
+        }
+      }
+    }
+    return (System.nanoTime() - start) / (double) SCANLOOKUPS;
+  }
+}
@@ -1,15 +1,9 @@
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
 /**
- * A component that manages and displays a list of connected users, extends {@link Component}.
- * Manages the connection status of both server and client users by listening to heartbeats
- * and aging each user until they expire and are deleted.
+ * A component that displays the list of connected users, extends {@link Component}.
+ * The connection status of both server and client users is tracked by the {@link PresenceService},
+ * the labels are only refreshed when the connected users have changed.
  */
 public class UserPane extends Component {
-  private HashMap<String, Integer> users;
-  private int maxHeartbeatAge;
   private Textfield[] userLabels;
   private Textlabel title;
   private int MAXUSERLABELS = 9;
@@ -27,16 +21,11 @@ public class UserPane extends Component {
    */
   public UserPane(int x, int y, int cWidth, int cHeight, Color bgColor, Color borderColor, int radius) {
     super(x, y, cWidth, cHeight, bgColor, borderColor, radius);
-    this.maxHeartbeatAge = 100;
-    users = new HashMap<>();
     userLabels = new Textfield[MAXUSERLABELS];
 
     drawComponent();
   }
 
-
-
-
   /**
    * Initializes the visual components of the user pane.
    */
@@ -46,7 +35,7 @@ public class UserPane extends Component {
     ControlP5 cp5 = Application.getInstance().getControlP5();
     if (title == null) {
       title = cp5.addTextlabel("userPaneLblTitle")
-        .setText("")
+        .setText("No connected users.")
         .setPosition(super.getX()+20, super.getY()+20)
         .setColor(255);
     }
@@ -64,69 +53,46 @@ public class UserPane extends Component {
   }
 
   /**
-   * Updates the heartbeat counter for a user. If the user does not exist, they are added.
+   * Records the heartbeat of a user. If the user is not connected yet, they are added.
    *
-   * @param input A string input typically expected as "UserHeartbeat;;;username".
+   * @param input A message typically formatted as "UserHeartbeat;;;username".
    */
-  public void updateUserHeartbeat(String input) {
-    String[] messageParts = input.split(";;;");
-    String username = messageParts[1];
-
-    users.put(username, 0);
+  public void updateUserHeartbeat(Message input) {
+    Application.getInstance().getPresenceService().heartbeat(input.getString(0));
   }
 
   /**
-   * Updates the display of currently connected users. This includes aging heartbeats,
-   * removing expired user entries, and updating the display of active users.
-   * Sends the currently connected users to the clients.
+   * Removes expired users and refreshes the display of the connected users if they have changed.
+   * The clients are informed about the changes by the presence service.
    */
   public void update() {
+    if (Application.getInstance().getPresenceService().update()) {
+      refresh();
+    }
+  }
+
+  /**
+   * Shows the currently connected users in the labels.
+   */
+  private void refresh() {
+    ArrayList<String> users = Application.getInstance().getPresenceService().getUsers();
     if (users.isEmpty()) {
       title.setText("No connected users.");
     } else {
       title.setText("Currently connected users:");
     }
-    //hide labels and remove text
-    for (Textfield tf : userLabels) {
-      tf.hide();
-      tf.setText("");
-    }
-
     super.drawOver();
 
-
-    //Age user
-    for (String key : users.keySet()) {
-      users.put(key, users.get(key) + 1);
-    }
-
-    // Use an iterator to safely remove old users
-    Iterator<Map.Entry<String, Integer>> iterator = users.entrySet().iterator();
-
-    int currentIteration = 0;
-
-    //String that is sent to the clients to update their userlist
-    String userListForClients = "";
-
-    while (iterator.hasNext() && currentIteration < MAXUSERLABELS) {
-      Map.Entry<String, Integer> entry = iterator.next();
-      String key = entry.getKey();
-      Integer value = entry.getValue();
-
-      if (value >= maxHeartbeatAge) {
-        iterator.remove();
+    for (int i = 0; i < MAXUSERLABELS; i++) {
+      if (i < users.size()) {
+        String username = users.get(i);
+        String userDisplayName = username.length() > 10 ? username.substring(0, 10) : username;
+        userLabels[i].setText(userDisplayName);
+        userLabels[i].show();
       } else {
-        String userDisplayName = key.length() > 10 ? key.substring(0, 10) : key;
-
-        userListForClients += ";;;"+key;
-        userLabels[currentIteration].setText(userDisplayName);
-        userLabels[currentIteration].show();
+        userLabels[i].hide();
+        userLabels[i].setText("");
       }
-
-      currentIteration++;
     }
-
-    //send current userlist to client:
-    Application.getInstance().getServerSide().writeToClients("ConnectedUsers"+userListForClients);
   }
 }
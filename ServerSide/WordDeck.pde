@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Draws distinct words for the word selection without repeating recently played words.
+ * The words that may be drawn form a pool, the recently played words are taken out of it until they leave the history window.
+ * Without weights, a selection is drawn by a partial Fisher-Yates shuffle of the pool, so every draw costs O(1).
+ * With weights, e.g. by difficulty or category, each word is drawn with a probability proportional to its weight,
+ * using a Fenwick tree of the weights, so every draw costs O(log n). If fewer words than a selection have a weight,
+ * the selection is completed with words drawn without weights, so that it always holds distinct words as long as the pool has enough.
+ */
+public class WordDeck {
+  private int[] pool;
+  private int[] positions;
+  private int poolSize;
+  private int[] history;
+  private int historySize;
+  private int historyStart;
+  private double[] weights;
+  private double[] activeWeights;
+  private double[] weightTree;
+  private int weightedCount;
+  private Random random = new Random();
+
+  /**
+   * Constructs a deck of words.
+   *
+   * @param wordCount the number of words, the words are identified by their index.
+   * @param historyLength the number of recently played words that are not drawn.
+   *        It is limited so that enough words for a selection remain.
+   * @param selectionSize the number of distinct words of a selection.
+   * @param weight returns the weight of the word with the given index, or null to draw all words with equal probability.
+   */
+  public WordDeck(int wordCount, int historyLength, int selectionSize, IntToDoubleFunction weight) {
+    pool = new int[wordCount];
+    positions = new int[wordCount];
+    for (int i = 0; i < wordCount; i++) {
+      pool[i] = i;
+      positions[i] = i;
+    }
+    poolSize = wordCount;
+    history = new int[Math.max(0, Math.min(historyLength, wordCount - selectionSize))];
+    if (weight != null) {
+      weights = new double[wordCount];
+      activeWeights = new double[wordCount];
+      weightTree = new double[wordCount + 1];
+      for (int i = 0; i < wordCount; i++) {
+        weights[i] = Math.max(0, weight.applyAsDouble(i));
+        setActiveWeight(i, weights[i]);
+      }
+    }
+  }
+
+  /**
+   * Draws distinct words that have not been played recently.
+   *
+   * @param count the number of words to draw.
+   * @return the indices of the drawn words, fewer if there are not enough words.
+   */
+  public int[] draw(int count) {
+    int[] selection = new int[Math.min(count, poolSize)];
+    if (weights == null) {
+      // partial Fisher-Yates shuffle, the drawn words are swapped to the end of the pool
+      for (int i = 0; i < selection.length; i++) {
+        int last = poolSize - 1 - i;
+        int drawn = random.nextInt(last + 1);
+        selection[i] = pool[drawn];
+        swap(drawn, last);
+      }
+      return selection;
+    }
+    // drawn words are taken out of the weights until the selection is complete, so they cannot be drawn twice
+    int drawnCount = 0;
+    while (drawnCount < selection.length && weightedCount > 0) {
+      int drawn = findWeight(random.nextDouble() * totalWeight());
+      if (drawn >= activeWeights.length || activeWeights[drawn] == 0) {
+        // rounding errors of the tree landed on a word that cannot be drawn, the tree is rebuilt from the exact weights
+        rebuildWeightTree();
+        continue;
+      }
+      selection[drawnCount++] = drawn;
+      setActiveWeight(drawn, 0);
+    }
+    for (int i = 0; i < drawnCount; i++) {
+      setActiveWeight(selection[i], weights[selection[i]]);
+    }
+    // the remaining words are drawn without weights, the words drawn so far are swapped to the end of the pool first
+    for (int i = 0; i < drawnCount; i++) {
+      swap(positions[selection[i]], poolSize - 1 - i);
+    }
+    for (int i = drawnCount; i < selection.length; i++) {
+      int last = poolSize - 1 - i;
+      int drawn = random.nextInt(last + 1);
+      selection[i] = pool[drawn];
+      swap(drawn, last);
+    }
+    return selection;
+  }
+
+  /**
+   * Marks a word as played, so that it is not drawn until the given number of other words has been played.
+   * The word that leaves the history window is returned to the pool.
+   *
+   * @param index the index of the played word.
+   */
+  public void played(int index) {
+    if (history.length == 0 || positions[index] >= poolSize) {
+      return;
+    }
+    removeFromPool(index);
+    if (historySize == history.length) {
+      returnToPool(history[historyStart]);
+      history[historyStart] = index;
+      historyStart = (historyStart + 1) % history.length;
+    } else {
+      history[(historyStart + historySize) % history.length] = index;
+      historySize++;
+    }
+  }
+
+  /**
+   * Takes a word out of the pool by swapping it behind the last word of the pool.
+   *
+   * @param index the index of the word.
+   */
+  private void removeFromPool(int index) {
+    swap(positions[index], poolSize - 1);
+    poolSize--;
+    if (weights != null) {
+      setActiveWeight(index, 0);
+    }
+  }
+
+  /**
+   * Returns a word to the pool.
+   *
+   * @param index the index of the word.
+   */
+  private void returnToPool(int index) {
+    swap(positions[index], poolSize);
+    poolSize++;
+    if (weights != null) {
+      setActiveWeight(index, weights[index]);
+    }
+  }
+
+  /**
+   * Swaps two positions of the pool array and updates the positions of both words.
+   *
+   * @param first the first position.
+   * @param second the second position.
+   */
+  private void swap(int first, int second) {
+    int word = pool[first];
+    pool[first] = pool[second];
+    pool[second] = word;
+    positions[pool[first]] = first;
+    positions[pool[second]] = second;
+  }
+
+  /**
+   * Sets the weight of a word in the Fenwick tree, 0 while the word cannot be drawn.
+   *
+   * @param index the index of the word.
+   * @param weight the weight of the word.
+   */
+  private void setActiveWeight(int index, double weight) {
+    double delta = weight - activeWeights[index];
+    weightedCount += (weight > 0 ? 1 : 0) - (activeWeights[index] > 0 ? 1 : 0);
+    activeWeights[index] = weight;
+    for (int i = index + 1; i < weightTree.length; i += i & -i) {
+      weightTree[i] += delta;
+    }
+  }
+
+  /**
+   * Rebuilds the Fenwick tree from the weights of the words in O(n), which discards the rounding errors accumulated by the updates.
+   */
+  private void rebuildWeightTree() {
+    Arrays.fill(weightTree, 0);
+    for (int i = 1; i < weightTree.length; i++) {
+      weightTree[i] += activeWeights[i - 1];
+      int parent = i + (i & -i);
+      if (parent < weightTree.length) {
+        weightTree[parent] += weightTree[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the sum of the weights of all words in the pool.
+   *
+   * @return the total weight.
+   */
+  private double totalWeight() {
+    double sum = 0;
+    for (int i = weightTree.length - 1; i > 0; i -= i & -i) {
+      sum += weightTree[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Finds the word at a position of the cumulated weights by descending the Fenwick tree.
+   *
+   * @param target a value between 0 and the total weight.
+   * @return the index of the word whose weight range contains the value. Due to rounding errors, this may be a word
+   *         that cannot be drawn or the number of words, which the caller has to check.
+   */
+  private int findWeight(double target) {
+    int index = 0;
+    for (int step = Integer.highestOneBit(weightTree.length - 1); step > 0; step >>= 1) {
+      if (index + step < weightTree.length && weightTree[index + step] <= target) {
+        index += step;
+        target -= weightTree[index];
+      }
+    }
+    return index;
+  }
+}
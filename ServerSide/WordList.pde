@@ -1,96 +1,173 @@
-import de.bezier.data.sql.*;
-import java.util.HashSet;
+import java.sql.SQLException;
+import java.util.function.IntToDoubleFunction;
 /**
- * Manages a list of words, including loading them from a database, and provides functionality for word validation and selection.
+ * Manages a list of words, including loading them from a compiled {@link WordPack}, and provides functionality for word validation and selection.
+ * The words stay in the memory-mapped pack, only the offered words are decoded.
+ * When the words table changes, a {@link WordPackLoader} compiles a new pack in the background,
+ * which is swapped in before the next word selection, so a round in progress keeps its current word.
  */
 public class WordList {
-  private ArrayList<String[]> words;
-  private SQLite db;
+  private WordPack wordPack;
+  private Database db;
   private String[] currentWord;
+  private int[] selection = new int[0];
+  private ArrayList<String[]> wordSelection = new ArrayList<>();
+  private GuessMatcher guessMatcher = new GuessMatcher();
+  private CloseGuessMatcher closeGuessMatcher = new CloseGuessMatcher(guessMatcher);
+  private WordDeck wordDeck;
+  private IntToDoubleFunction wordWeight;
+  private WordPackLoader wordPackLoader;
+  private final int SELECTIONSIZE = 3;
+  private final int RECENTWORDS = 20;
+  private final long RELOADCHECKINTERVAL = 2000;
 
   /**
-   * Constructs a WordList, initializing the database connection and loading words from the specified data source.
+   * Constructs a WordList, opens the word pack and starts watching the words table for changes.
+   * If there is no word pack yet or it is outdated, it is compiled from the words table first.
    *
-   * @param dataSource The path or identifier for the data source used by SQLite.
+   * @param db The shared database connection.
+   * @param packDirectory The directory of the word packs.
    */
-  public WordList(String dataSource) {
-    db = new SQLite(Application.getInstance().getServerSide(), dataSource);
-    words = new ArrayList<>();
-    loadWordsFromDB();
+  public WordList(Database db, File packDirectory) {
+    this.db = db;
+    loadWordPack(packDirectory);
+    setWordWeight(null);
+    wordPackLoader = new WordPackLoader(db.getPath(), packDirectory, RELOADCHECKINTERVAL, wordPack == null ? -1 : wordPack.getSourceVersion());
+    wordPackLoader.start();
   }
 
   /**
-   * Loads words from the database into the words list. Each word entry is a string array representing the word in different languages.
+   * Sets how likely each word is offered in the word selection, e.g. by difficulty or category.
+   *
+   * @param weight returns the weight of the word with the given index in the word list,
+   *        or null to offer all words with equal probability.
    */
-  public void loadWordsFromDB() {
+  public void setWordWeight(IntToDoubleFunction weight) {
+    wordWeight = weight;
+    wordDeck = new WordDeck(getWordCount(), RECENTWORDS, SELECTIONSIZE, weight);
+  }
+
+  /**
+   * Opens the word pack of the current version of the words, compiling it from the words table if it does not exist yet.
+   * The packs of other versions, which are left from earlier runs, are deleted.
+   * Each word is represented by a string array of the word in different languages, see {@link WordPackCompiler#getLanguages()}.
+   *
+   * @param packDirectory The directory of the word packs.
+   */
+  public void loadWordPack(File packDirectory) {
     try {
-      if ( db.connect()) {
-        print("db connected");
-        db.query( "SELECT * FROM words" );
-        while (db.next()) {
-          String wordGer = db.getString("wordGer");
-          String wordEng = db.getString("wordEng");
-          String wordUkr = db.getString("wordUkr");
-          //String wordChi = db.getString("wordChi"); //chinese characters are not displayed correctly, so we dont load them.
-          String wordMon = db.getString("wordMon");
-          String wordSpa = db.getString("wordSpa");
-          String wordPor = db.getString("wordPor");
-          String wordKen = db.getString("wordKen");
-          String wordNig = db.getString("wordNig");
-          String wordFre = db.getString("wordFre");
-          String[] word = {wordGer, wordEng, wordUkr, wordMon, wordSpa, wordPor, wordKen, wordNig, wordFre};
-          words.add(word);
+      WordPackCompiler compiler = new WordPackCompiler();
+      compiler.prepareDB(db.getConnection());
+      File packFile = compiler.getPackFile(packDirectory, compiler.readSourceVersion(db.getConnection()));
+      if (packFile.exists()) {
+        try {
+          wordPack = new WordPack(packFile);
+        }
+        catch (IOException ioe) {
+          println("The word pack cannot be read and is compiled again: " + ioe.getMessage());
         }
       }
+      if (wordPack == null || wordPack.getSourceVersion() != compiler.readSourceVersion(db.getConnection())) {
+        wordPack = new WordPack(compiler.compile(db.getConnection(), packDirectory));
+      }
+      compiler.deletePacks(packDirectory, wordPack.getFile());
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
     }
-    catch (Exception e) {
-      e.printStackTrace();
+    catch (IOException ioe) {
+      ioe.printStackTrace();
     }
   }
 
+  /**
+   * Returns the number of words that can be offered.
+   *
+   * @return the number of words in the word pack, 0 if it could not be opened.
+   */
+  public int getWordCount() {
+    return wordPack == null ? 0 : wordPack.getWordCount();
+  }
 
   /**
-   * Validates if the given word matches any word in the currentWord array.
+   * Validates if the given chat message contains any word in the currentWord array as a whole word,
+   * ignoring case, accents and whitespace.
    *
-   * @param word The word to validate.
-   * @return true if the word matches any language version of the current word, false otherwise.
+   * @param message The chat message to validate.
+   * @return true if the message contains any language version of the current word, false otherwise.
    */
-  public boolean validateWord(String word) {
-    if (currentWord != null) {
-      for (int i=0; i<currentWord.length; i++) {
-        if (currentWord[i].toLowerCase().equals(word.toLowerCase())) {
-          return true;
-        }
-      }
-    }
-    return false;
+  public boolean validateWord(String message) {
+    return guessMatcher.matches(message);
+  }
+
+  /**
+   * Checks if the given chat message contains a guess that is close to, but not equal to any word in the currentWord array,
+   * e.g. a typo.
+   *
+   * @param message The chat message to check.
+   * @return true if the message contains a close guess, false otherwise.
+   */
+  public boolean isCloseGuess(String message) {
+    return closeGuessMatcher.matches(message);
   }
 
 
   /**
-   * Randomly selects a set of 3 unique words from the list.
+   * Randomly selects a set of 3 unique words from the list. Words that were played in the last rounds are not offered.
    *
    * @return An ArrayList of String arrays, each containing word representations in different languages.
    */
   public ArrayList<String[]> getWordSelection() {
-    HashSet<String[]> uniqueSelection = new HashSet<>();
-
-    //easy way to ensure that 3 different words are returned is to just try and add it to the set until it is long enough
-    while (uniqueSelection.size() < 3) {
+    swapReloadedWordPack();
+    selection = wordDeck.draw(SELECTIONSIZE);
+    wordSelection = new ArrayList<>();
+    for (int index : selection) {
+      wordSelection.add(wordPack.getWord(index));
+    }
+    return wordSelection;
+  }
 
-      uniqueSelection.add(words.get((int)random(words.size())));
+  /**
+   * Swaps in the word pack that has been reloaded since the last selection and reports the reload.
+   * The deck is rebuilt for the new words, so the history of recently played words starts anew.
+   * The previous pack is handed back to the loader, which deletes its file.
+   */
+  private void swapReloadedWordPack() {
+    WordPack reloadedPack = wordPackLoader.pollLoadedPack();
+    if (reloadedPack != null) {
+      if (wordPack != null) {
+        wordPackLoader.retire(wordPack);
+      }
+      wordPack = reloadedPack;
+      setWordWeight(wordWeight);
+      println("Reloaded " + wordPack.getWordCount() + " words (" + wordPack.getSize() / 1024 + " KiB) in "
+        + wordPackLoader.getReloadTime() / 1000000 + " ms.");
     }
-    ArrayList<String[]> wordSelection = new ArrayList(uniqueSelection);
+  }
 
-    return wordSelection;
+  /**
+   * Stops watching the words table.
+   */
+  public void close() {
+    wordPackLoader.stop();
   }
 
   /**
-   * Sets the currently active word array.
+   * Sets the currently active word array and prepares the matching of the guesses, if the word has changed.
+   * The word is not offered again in the next rounds.
+   * When the round ends, the word is cleared, so no later chat message counts as a guess.
    *
-   * @param word An array of strings representing the same word in different languages.
+   * @param word An array of strings representing the same word in different languages, or null if no round is running.
    */
   public void setCurrentWord(String[] word) {
+    if (word != currentWord) {
+      guessMatcher.setWord(word);
+      closeGuessMatcher.setWord(word);
+      int position = wordSelection.indexOf(word);
+      if (position >= 0) {
+        wordDeck.played(selection[position]);
+      }
+    }
     currentWord = word;
   }
 
@@ -0,0 +1,136 @@
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compiled word pack, opened memory-mapped, so that opening it does not read the words
+ * and the heap use does not depend on the size of the dictionary. Words are only decoded when they are requested.
+ * Word packs are written by the {@link WordPackCompiler}. All numbers are big-endian, a pack consists of
+ * <ul>
+ * <li>a header of the magic number, the format version, the number of words, the number of languages
+ * and the version of the words table the pack was compiled from,</li>
+ * <li>the name of each language as its UTF-8 length (short) and bytes,</li>
+ * <li>an offset table per language with one offset (int) into the string pool per word and the end offset,</li>
+ * <li>the string pool of all words as UTF-8, grouped by language.</li>
+ * </ul>
+ */
+public class WordPack {
+  public static final int MAGIC = 0x57504b31;
+  public static final int VERSION = 2;
+  private File file;
+  private MappedByteBuffer buffer;
+  private int wordCount;
+  private long sourceVersion;
+  private String[] languages;
+  private int tableStart;
+  private int poolStart;
+
+  /**
+   * Opens a word pack. The file is mapped once, the mapping stays valid after the channel is closed.
+   *
+   * @param file the word pack file.
+   * @throws IOException if the file cannot be read or is not a word pack of this version.
+   */
+  public WordPack(File file) throws IOException {
+    this.file = file;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Word pack " + file + " is too large to be mapped.");
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException(file + " is not a word pack of version " + VERSION + ".");
+      }
+      wordCount = buffer.getInt();
+      languages = new String[buffer.getInt()];
+      sourceVersion = buffer.getLong();
+      for (int i = 0; i < languages.length; i++) {
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        languages[i] = new String(name, StandardCharsets.UTF_8);
+      }
+      tableStart = buffer.position();
+      poolStart = tableStart + languages.length * (wordCount + 1) * 4;
+    }
+    catch (RuntimeException re) {
+      throw new IOException("Word pack " + file + " is corrupted.", re);
+    }
+  }
+
+  /**
+   * Returns a word in all languages of the pack.
+   *
+   * @param index the index of the word.
+   * @return the word in each language, in the order of {@link #getLanguages()}.
+   */
+  public String[] getWord(int index) {
+    String[] word = new String[languages.length];
+    for (int language = 0; language < languages.length; language++) {
+      word[language] = getWord(index, language);
+    }
+    return word;
+  }
+
+  /**
+   * Decodes a word in one language from the string pool.
+   *
+   * @param index the index of the word.
+   * @param language the index of the language.
+   * @return the word in the language.
+   */
+  public String getWord(int index, int language) {
+    int entry = tableStart + (language * (wordCount + 1) + index) * 4;
+    int start = buffer.getInt(entry);
+    byte[] bytes = new byte[buffer.getInt(entry + 4) - start];
+    buffer.get(poolStart + start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the number of words in the pack.
+   *
+   * @return the number of words.
+   */
+  public int getWordCount() {
+    return wordCount;
+  }
+
+  /**
+   * Returns the version of the words table the pack was compiled from, see {@link WordPackCompiler#readSourceVersion(java.sql.Connection)}.
+   *
+   * @return the version of the words table.
+   */
+  public long getSourceVersion() {
+    return sourceVersion;
+  }
+
+  /**
+   * Returns the names of the languages of the pack, i.e. the columns of the words table they were compiled from.
+   *
+   * @return the language names.
+   */
+  public String[] getLanguages() {
+    return languages;
+  }
+
+  /**
+   * Returns the file of the pack, which must not be replaced or deleted while the pack is in use.
+   *
+   * @return the word pack file.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the size of the pack.
+   *
+   * @return the size of the mapped file in bytes.
+   */
+  public int getSize() {
+    return buffer.capacity();
+  }
+}
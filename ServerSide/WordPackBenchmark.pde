@@ -0,0 +1,130 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the {@link WordPack} with the list of string arrays that held every word on the heap before,
+ * for generated dictionaries of growing size in all languages of the pack.
+ * For each size it prints the time to load the list and to open the pack, the heap both use and the time to decode a word from the pack.
+ * The time to compile the pack and its size on disk are printed as well.
+ * Run the server sketch with the argument "--benchmark" to print the results.
+ */
+public class WordPackBenchmark {
+  private final int[] WORDCOUNTS = {1000, 10000, 100000, 500000};
+  private final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "so", "ти", "ля", "ção", "ñe", "ö", "猫", "球", "苹"};
+  private final int LOOKUPS = 1000000;
+  private Random random = new Random(42);
+  private long blackhole;
+
+  /**
+   * Runs the benchmark for all dictionary sizes.
+   */
+  public void run() {
+    println("words      list ms  list heap KiB   compile ms  pack KiB   open ms  pack heap KiB   lookup ns/word");
+    for (int wordCount : WORDCOUNTS) {
+      try {
+        measure(wordCount);
+      }
+      catch (OutOfMemoryError oome) {
+        println(wordCount + " words do not fit into the heap, increase the maximum memory of the sketch.");
+        break;
+      }
+      catch (IOException ioe) {
+        ioe.printStackTrace();
+        break;
+      }
+    }
+  }
+
+  /**
+   * Generates a dictionary of the given size, loads it as a list, compiles it into a temporary pack and opens the pack.
+   *
+   * @param wordCount the number of words.
+   * @throws IOException if the temporary pack cannot be written or read.
+   */
+  private void measure(int wordCount) throws IOException {
+    WordPackCompiler compiler = new WordPackCompiler();
+    int languageCount = compiler.getLanguages().length;
+    // the rows are generated as UTF-8, like they arrive from the database
+    byte[][][] rows = new byte[wordCount][languageCount][];
+    for (int i = 0; i < wordCount; i++) {
+      for (int j = 0; j < languageCount; j++) {
+        rows[i][j] = generateWord().getBytes(StandardCharsets.UTF_8);
+      }
+    }
+
+    long heap = usedHeap();
+    long start = System.nanoTime();
+    ArrayList<String[]> words = new ArrayList<>();
+    for (byte[][] row : rows) {
+      String[] word = new String[languageCount];
+      for (int j = 0; j < languageCount; j++) {
+        word[j] = new String(row[j], StandardCharsets.UTF_8);
+      }
+      words.add(word);
+    }
+    double listTime = (System.nanoTime() - start) / 1000000.0;
+    long listHeap = usedHeap() - heap;
+
+    start = System.nanoTime();
+    String[] word = new String[languageCount];
+    for (byte[][] row : rows) {
+      for (int j = 0; j < languageCount; j++) {
+        word[j] = new String(row[j], StandardCharsets.UTF_8);
+      }
+      compiler.add(word);
+    }
+    File packFile = File.createTempFile("words", ".pack");
+    packFile.deleteOnExit();
+    compiler.write(packFile);
+    double compileTime = (System.nanoTime() - start) / 1000000.0;
+    compiler = null;
+
+    heap = usedHeap();
+    start = System.nanoTime();
+    WordPack wordPack = new WordPack(packFile);
+    double openTime = (System.nanoTime() - start) / 1000000.0;
+    long packHeap = usedHeap() - heap;
+
+    double lookupTime = 0;
+    for (int round = 0; round < 3; round++) {
+      start = System.nanoTime();
+      for (int i = 0; i < LOOKUPS; i++) {
+        blackhole += wordPack.getWord(random.nextInt(wordCount), i % languageCount).length();
+      }
+      lookupTime = (System.nanoTime() - start) / (double) LOOKUPS;
+    }
+    if (!Arrays.equals(words.get(wordCount - 1), wordPack.getWord(wordCount - 1))) {
+      println("The pack does not hold the generated words.");
+    }
+    println(String.format("%-8d %9.1f %14d %12.1f %9d %9.2f %14d %16.1f", wordCount, listTime, listHeap / 1024,
+      compileTime, wordPack.getSize() / 1024, openTime, packHeap / 1024, lookupTime));
+    packFile.delete();
+  }
+
+  /**
+   * Generates a word of a few syllables, mixing scripts like the languages of the pack.
+   *
+   * @return the generated word.
+   */
+  private String generateWord() {
+    StringBuilder word = new StringBuilder();
+    for (int i = 2 + random.nextInt(4); i > 0; i--) {
+      word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+    }
+    return word.toString();
+  }
+
+  /**
+   * Returns the heap in use after a garbage collection.
+   *
+   * @return the used heap in bytes.
+   */
+  private long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
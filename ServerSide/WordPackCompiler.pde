@@ -0,0 +1,197 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Compiles the words table of the database into a {@link WordPack}.
+ * Every change of the words table increments its version by a trigger, the pack stores the version it was compiled from,
+ * so that an outdated pack can be detected without reading the words.
+ * The words are collected per language and written in one go, first to a temporary file,
+ * which then replaces the pack, so that a pack is never read half written.
+ * Each version of the words table is compiled into its own file, e.g. "words-42.pack", since a pack that is mapped
+ * cannot be replaced on Windows. Packs of older versions are deleted once they are no longer in use.
+ * Run the server sketch with the argument "--compile-words" to compile the pack from data/data.sqlite.
+ */
+public class WordPackCompiler {
+  private final String PACKPREFIX = "words-";
+  private final String PACKSUFFIX = ".pack";
+  private final String[] LANGUAGES = {"wordGer", "wordEng", "wordUkr", "wordMon", "wordSpa", "wordPor", "wordKen", "wordNig", "wordFre", "wordChi"};
+  private ByteArrayOutputStream[] pools;
+  private int[][] offsets;
+  private int wordCount;
+  private long sourceVersion;
+
+  /**
+   * Constructs a compiler without words.
+   */
+  public WordPackCompiler() {
+    pools = new ByteArrayOutputStream[LANGUAGES.length];
+    for (int i = 0; i < pools.length; i++) {
+      pools[i] = new ByteArrayOutputStream();
+    }
+    offsets = new int[LANGUAGES.length][1024];
+  }
+
+  /**
+   * Creates the version of the words table and the triggers that increment it on every change, if they do not exist yet.
+   *
+   * @param connection the connection to the database holding the words table.
+   * @throws SQLException if the table or the triggers cannot be created.
+   */
+  public void prepareDB(java.sql.Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS wordsVersion (id INTEGER PRIMARY KEY CHECK (id = 0), version INTEGER NOT NULL)");
+      statement.execute("INSERT OR IGNORE INTO wordsVersion (id, version) VALUES (0, 0)");
+      statement.execute("CREATE TRIGGER IF NOT EXISTS wordsInserted AFTER INSERT ON words BEGIN UPDATE wordsVersion SET version = version + 1 WHERE id = 0; END");
+      statement.execute("CREATE TRIGGER IF NOT EXISTS wordsUpdated AFTER UPDATE ON words BEGIN UPDATE wordsVersion SET version = version + 1 WHERE id = 0; END");
+      statement.execute("CREATE TRIGGER IF NOT EXISTS wordsDeleted AFTER DELETE ON words BEGIN UPDATE wordsVersion SET version = version + 1 WHERE id = 0; END");
+    }
+  }
+
+  /**
+   * Reads the current version of the words table.
+   *
+   * @param connection the connection to the database holding the words table.
+   * @return the version, which is incremented on every change of the words.
+   * @throws SQLException if the version cannot be read.
+   */
+  public long readSourceVersion(java.sql.Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT version FROM wordsVersion WHERE id = 0");
+      ResultSet result = statement.executeQuery()) {
+      return result.next() ? result.getLong(1) : 0;
+    }
+  }
+
+  /**
+   * Returns the file of the word pack compiled from a version of the words table.
+   *
+   * @param directory the directory of the word packs.
+   * @param version the version of the words table.
+   * @return the word pack file of the version.
+   */
+  public File getPackFile(File directory, long version) {
+    return new File(directory, PACKPREFIX + version + PACKSUFFIX);
+  }
+
+  /**
+   * Deletes the word packs of a directory, except the pack in use. Packs that are still mapped on Windows cannot be deleted and are kept.
+   *
+   * @param directory the directory of the word packs.
+   * @param packInUse the pack file to keep.
+   */
+  public void deletePacks(File directory, File packInUse) {
+    File[] packs = directory.listFiles((dir, name) -> name.startsWith(PACKPREFIX) && name.endsWith(PACKSUFFIX));
+    if (packs != null) {
+      for (File pack : packs) {
+        if (!pack.equals(packInUse)) {
+          pack.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Compiles all words of the words table into the word pack of the current version of the words table. The version is read before the words,
+   * so a change in between leaves the pack with an older version and it is compiled again.
+   *
+   * @param connection the connection to the database holding the words table.
+   * @param directory the directory of the word packs.
+   * @return the word pack file that was written, see {@link #getPackFile(File, long)}.
+   * @throws SQLException if the words cannot be read.
+   * @throws IOException if the word pack cannot be written.
+   */
+  public File compile(java.sql.Connection connection, File directory) throws SQLException, IOException {
+    sourceVersion = readSourceVersion(connection);
+    File file = getPackFile(directory, sourceVersion);
+    try (Statement statement = connection.createStatement();
+      ResultSet result = statement.executeQuery("SELECT * FROM words ORDER BY id")) {
+      String[] word = new String[LANGUAGES.length];
+      while (result.next()) {
+        for (int i = 0; i < LANGUAGES.length; i++) {
+          word[i] = result.getString(LANGUAGES[i]);
+        }
+        add(word);
+      }
+    }
+    write(file);
+    return file;
+  }
+
+  /**
+   * Adds a word to the pack.
+   *
+   * @param word the word in each language, in the order of {@link #getLanguages()}. Missing words are stored as empty strings.
+   */
+  public void add(String[] word) {
+    if (wordCount + 1 >= offsets[0].length) {
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = Arrays.copyOf(offsets[i], offsets[i].length * 2);
+      }
+    }
+    for (int i = 0; i < LANGUAGES.length; i++) {
+      byte[] bytes = (word[i] == null ? "" : word[i]).getBytes(StandardCharsets.UTF_8);
+      pools[i].write(bytes, 0, bytes.length);
+      offsets[i][wordCount + 1] = pools[i].size();
+    }
+    wordCount++;
+  }
+
+  /**
+   * Writes the added words as a word pack. The offsets of each language continue after the words of the previous language.
+   *
+   * @param file the word pack file to write.
+   * @throws IOException if the pack cannot be written or would be too large to be mapped.
+   */
+  public void write(File file) throws IOException {
+    long size = 24L + LANGUAGES.length * (wordCount + 1L) * 4;
+    for (int i = 0; i < LANGUAGES.length; i++) {
+      size += 2 + LANGUAGES[i].getBytes(StandardCharsets.UTF_8).length + pools[i].size();
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("The word pack would be too large to be mapped (" + size + " bytes).");
+    }
+    File temporary = new File(file.getPath() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+      output.writeInt(WordPack.MAGIC);
+      output.writeInt(WordPack.VERSION);
+      output.writeInt(wordCount);
+      output.writeInt(LANGUAGES.length);
+      output.writeLong(sourceVersion);
+      for (String language : LANGUAGES) {
+        byte[] name = language.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(name.length);
+        output.write(name);
+      }
+      int poolOffset = 0;
+      for (int i = 0; i < LANGUAGES.length; i++) {
+        for (int j = 0; j <= wordCount; j++) {
+          output.writeInt(poolOffset + offsets[i][j]);
+        }
+        poolOffset += pools[i].size();
+      }
+      for (ByteArrayOutputStream pool : pools) {
+        pool.writeTo(output);
+      }
+    }
+    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Returns the columns of the words table that are compiled, the index of a column is the index of its language in the pack.
+   * Chinese comes last, so that the indices of the other languages are the same as before it was included.
+   *
+   * @return the language names.
+   */
+  public String[] getLanguages() {
+    return LANGUAGES;
+  }
+}
@@ -0,0 +1,153 @@
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches the version of the words table on a background thread and compiles and opens a new {@link WordPack}
+ * whenever the words have changed, so that words can be edited without restarting the server.
+ * The loader uses its own connection to the database. A loaded pack is immutable and handed over to the game thread,
+ * which swaps it in between rounds. Every version is compiled into its own file, so the pack in use is never replaced.
+ * The files of the packs that have been swapped out are deleted by the loader, on Windows only once their mapping has been released
+ * by the garbage collector, until then the deletion is retried after every interval.
+ */
+public class WordPackLoader implements Runnable {
+  private String databasePath;
+  private File packDirectory;
+  private long checkInterval;
+  private long sourceVersion;
+  private AtomicReference<WordPack> loadedPack;
+  private ConcurrentLinkedQueue<File> retiredPacks;
+  private volatile long reloadTime;
+  private volatile boolean running;
+  private Thread thread;
+
+  /**
+   * Constructs a loader for a database file.
+   *
+   * @param databasePath the absolute path of the SQLite database.
+   * @param packDirectory the directory the word packs are compiled into.
+   * @param checkInterval the time in ms between two checks of the version of the words table.
+   * @param sourceVersion the version of the words table of the pack in use.
+   */
+  public WordPackLoader(String databasePath, File packDirectory, long checkInterval, long sourceVersion) {
+    this.databasePath = databasePath;
+    this.packDirectory = packDirectory;
+    this.checkInterval = checkInterval;
+    this.sourceVersion = sourceVersion;
+    this.loadedPack = new AtomicReference<>();
+    this.retiredPacks = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Starts the background thread.
+   */
+  public void start() {
+    running = true;
+    thread = new Thread(this, "WordPackLoader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the background thread. Blocks until a compilation in progress is finished.
+   * Retired packs that cannot be deleted yet are left for the next start of the server, which deletes all packs except the current one.
+   */
+  public void stop() {
+    running = false;
+    synchronized (this) {
+      notifyAll();
+    }
+    try {
+      thread.join();
+    }
+    catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Checks the version of the words table after every interval and compiles a new pack if it has changed.
+   * A pack that fails to compile is not retried until the words change again.
+   */
+  @Override
+    public void run() {
+    WordPackCompiler compiler = new WordPackCompiler();
+    try (java.sql.Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath)) {
+      Statement pragma = connection.createStatement();
+      pragma.execute("PRAGMA busy_timeout = 5000");
+      pragma.close();
+      while (running) {
+        synchronized (this) {
+          if (running) {
+            wait(checkInterval);
+          }
+        }
+        retiredPacks.removeIf(file -> file.delete() || !file.exists());
+        try {
+          long version = compiler.readSourceVersion(connection);
+          if (running && version != sourceVersion) {
+            sourceVersion = version;
+            long start = System.nanoTime();
+            WordPack wordPack = new WordPack(new WordPackCompiler().compile(connection, packDirectory));
+            reloadTime = System.nanoTime() - start;
+            WordPack replacedPack = loadedPack.getAndSet(wordPack);
+            // a pack that has not been swapped in yet is outdated by the new one
+            if (replacedPack != null) {
+              retire(replacedPack);
+            }
+          }
+        }
+        catch (SQLException sqle) {
+          sqle.printStackTrace();
+        }
+        catch (IOException ioe) {
+          ioe.printStackTrace();
+        }
+      }
+    }
+    catch (SQLException sqle) {
+      sqle.printStackTrace();
+    }
+    catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Takes the pack that has been loaded since the last call.
+   *
+   * @return the new pack, or null if the words have not changed.
+   */
+  public WordPack pollLoadedPack() {
+    return loadedPack.getAndSet(null);
+  }
+
+  /**
+   * Hands over a pack that is no longer used, its file is deleted by the background thread.
+   *
+   * @param wordPack the pack that has been swapped out.
+   */
+  public void retire(WordPack wordPack) {
+    retiredPacks.offer(wordPack.getFile());
+  }
+
+  /**
+   * Returns the number of retired packs whose files have not been deleted yet.
+   *
+   * @return the number of retired pack files.
+   */
+  public int getRetiredCount() {
+    return retiredPacks.size();
+  }
+
+  /**
+   * Returns the time the last reload took to compile and open the pack.
+   *
+   * @return the reload time in ns.
+   */
+  public long getReloadTime() {
+    return reloadTime;
+  }
+}
@@ -0,0 +1,96 @@
+import java.nio.file.Files;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
+/**
+ * Checks that the words are reloaded while the current word pack is mapped, as it is during a game.
+ * The new version must be compiled into its own file, leaving the pack in use intact, and the old file must be deleted once the pack is retired.
+ */
+public class WordPackLoaderTest extends SketchTest {
+  private final long CHECKINTERVAL = 50;
+  private final long TIMEOUT = 10000;
+
+  /**
+   * Compiles a pack of one word, changes the words while the pack is mapped and waits for the loader to reload them.
+   */
+  @Override
+    public void run() {
+    try {
+      File directory = Files.createTempDirectory("words").toFile();
+      File databaseFile = new File(directory, "words.sqlite");
+      try (java.sql.Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath())) {
+        WordPackCompiler compiler = new WordPackCompiler();
+        createWordsTable(connection, compiler.getLanguages());
+        compiler.prepareDB(connection);
+        insertWord(connection, compiler.getLanguages(), "House");
+        WordPack oldPack = new WordPack(compiler.compile(connection, directory));
+        File oldFile = oldPack.getFile();
+
+        WordPackLoader loader = new WordPackLoader(databaseFile.getAbsolutePath(), directory, CHECKINTERVAL, oldPack.getSourceVersion());
+        loader.start();
+        insertWord(connection, compiler.getLanguages(), "Tree");
+        WordPack newPack = null;
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (newPack == null && System.currentTimeMillis() < deadline) {
+          Thread.sleep(CHECKINTERVAL);
+          newPack = loader.pollLoadedPack();
+        }
+        check(newPack != null, "the changed words are reloaded while the old pack is mapped");
+        if (newPack != null) {
+          check(!newPack.getFile().equals(oldFile), "the new version is compiled into its own file");
+          check(newPack.getWordCount() == 2 && newPack.getWord(1, 1).equals("Tree"), "the new pack holds the changed words");
+        }
+        check(oldFile.exists() && oldPack.getWordCount() == 1 && oldPack.getWord(0, 1).equals("House"), "the pack in use is left intact");
+
+        loader.retire(oldPack);
+        oldPack = null;
+        deadline = System.currentTimeMillis() + TIMEOUT;
+        while (loader.getRetiredCount() > 0 && System.currentTimeMillis() < deadline) {
+          // the mapping of the old pack is only released by the garbage collector
+          System.gc();
+          Thread.sleep(CHECKINTERVAL);
+        }
+        check(!oldFile.exists(), "the file of the retired pack is deleted once it is unmapped");
+        loader.stop();
+      }
+      deleteDirectory(directory);
+    }
+    catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Creates the words table with a column per language of the pack.
+   *
+   * @param connection the connection to the test database.
+   * @param languages the columns of the languages.
+   * @throws SQLException if the table cannot be created.
+   */
+  private void createWordsTable(java.sql.Connection connection, String[] languages) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE words (id INTEGER PRIMARY KEY, " + String.join(" TEXT, ", languages) + " TEXT)");
+    }
+  }
+
+  /**
+   * Inserts a word that is the same in all languages.
+   *
+   * @param connection the connection to the test database.
+   * @param languages the columns of the languages.
+   * @param word the word.
+   * @throws SQLException if the word cannot be inserted.
+   */
+  private void insertWord(java.sql.Connection connection, String[] languages, String word) throws SQLException {
+    String placeholders = String.join(", ", Collections.nCopies(languages.length, "?"));
+    try (PreparedStatement statement = connection.prepareStatement("INSERT INTO words (" + String.join(", ", languages) + ") VALUES (" + placeholders + ")")) {
+      for (int i = 0; i < languages.length; i++) {
+        statement.setString(i + 1, word);
+      }
+      statement.executeUpdate();
+    }
+  }
+}